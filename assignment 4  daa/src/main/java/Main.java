@@ -3,10 +3,19 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import graph.dagsp.DAGLongestPath;
 import graph.dagsp.DAGShortestPath;
+import graph.dagsp.ParallelDAGPaths;
+import graph.dist.BspCluster;
+import graph.dom.DominatorTree;
+import graph.ooc.OutOfCorePipeline;
+import graph.plan.PipelinePlanner;
+import graph.scc.ComponentWorkSpan;
 import graph.scc.CondensationBuilder;
+import graph.scc.CycleDiagnostics;
 import graph.scc.TarjanSCC;
 import graph.topo.KahnTopologicalSort;
+import graph.util.GraphWorkspace;
 import graph.util.SCCUtils;
+import graph.util.VertexRelabeling;
 import metrics.MetricsTracker;
 
 import java.nio.file.*;
@@ -16,7 +25,7 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         if (args.length < 2) {
-            System.out.println("Usage: scc|topo|dagsp <file-or-dir> [source]");
+            System.out.println("Usage: scc|topo|dagsp|dom|cycles|plan|ooc|bsp <file-or-dir> [source | cycles time budget ms]");
             return;
         }
 
@@ -28,23 +37,31 @@ public class Main {
             return;
         }
 
+        // scratch buffers are reused across files; -Dworkspace.budget.bytes caps their total size
+        GraphWorkspace ws = new GraphWorkspace(Long.getLong("workspace.budget.bytes", GraphWorkspace.UNLIMITED));
+
         if (Files.isDirectory(path)) {
             try (DirectoryStream<Path> ds = Files.newDirectoryStream(path, "*.json")) {
                 for (Path p : ds) {
                     System.out.println("Processing: " + p);
                     try {
-                        processFile(mode, p, args);
+                        processFile(mode, p, args, ws);
                     } catch (Exception e) {
                         System.err.println("Error processing " + p + ": " + e.getMessage());
                     }
                 }
             }
         } else {
-            processFile(mode, path, args);
+            processFile(mode, path, args, ws);
         }
     }
 
-    private static void processFile(String mode, Path file, String[] args) throws Exception {
+    private static void processFile(String mode, Path file, String[] args, GraphWorkspace ws) throws Exception {
+        if (mode.equals("ooc")) {
+            processOutOfCore(file, args);
+            return;
+        }
+
         ObjectMapper om = new ObjectMapper();
         JsonNode root = om.readTree(file.toFile());
 
@@ -93,23 +110,83 @@ public class Main {
             adjW.get(u).add(new int[]{v, w});
         }
 
-        MetricsTracker sccM = new MetricsTracker();
-        TarjanSCC tarjan = new TarjanSCC(adj, sccM);
-        List<List<Integer>> comps = tarjan.run();
+        // optional work per vertex (task), one unit each by default
+        int[] work = ComponentWorkSpan.unitWork(n);
+        JsonNode workNode = root.get("work");
+        if (workNode != null) {
+            if (!workNode.isArray() || workNode.size() != n) {
+                System.err.println("Skipping " + file + ": `work` must be an array of n values");
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                JsonNode w = workNode.get(i);
+                if (!w.isIntegralNumber() || !w.canConvertToInt() || w.asInt() < 0) {
+                    System.err.println("Skipping " + file + ": invalid `work` entry at index " + i + ": " + w);
+                    return;
+                }
+                work[i] = w.asInt();
+            }
+        }
+
+        // dagsp -Drelabel=bfs|rcm renumbers the input graph itself, so Tarjan and the
+        // condensation walk neighbours stored close together; -Drelabel=topo acts on the DAG below
+        VertexRelabeling inputRl = mode.equals("dagsp")
+                ? inputRelabeling(System.getProperty("relabel", "none"), adj) : null;
+        if (inputRl != null) {
+            adj = inputRl.apply(adj);
+            adjW = inputRl.applyWeighted(adjW);
+            work = inputRl.toNew(work);
+        }
 
-        if (mode.equals("scc")) {
-            System.out.println("SCC count = " + comps.size());
-            for (int i = 0; i < comps.size(); i++) {
-                System.out.println(i + ": " + comps.get(i));
+        if (mode.equals("scc") || mode.equals("cycles")) {
+            List<List<Integer>> comps = new TarjanSCC(adj, new MetricsTracker(), ws).run();
+            if (mode.equals("scc")) {
+                System.out.println("SCC count = " + comps.size());
+                for (int i = 0; i < comps.size(); i++) {
+                    System.out.println(i + ": " + comps.get(i));
+                }
+                return;
+            }
+            long budgetMs = (args.length >= 3) ? Long.parseLong(args[2]) : 1000;
+            MetricsTracker cycM = new MetricsTracker();
+            List<CycleDiagnostics.ComponentCycle> cycles =
+                    CycleDiagnostics.shortestCycles(adj, comps, budgetMs, cycM);
+            System.out.println("Non-trivial SCCs = " + cycles.size());
+            for (CycleDiagnostics.ComponentCycle c : cycles) {
+                System.out.println(c.component() + ": length " + c.length()
+                        + (c.exact() ? "" : " (best found, time budget exhausted)")
+                        + " cycle " + c.cycle());
             }
             return;
         }
 
-        List<List<Integer>> dag = CondensationBuilder.buildCondensation(adj, comps);
-        List<List<int[]>> dagW = CondensationBuilder.buildWeightedCondensation(adj, adjW, comps);
+        // the remaining modes need a DAG: the planner skips Tarjan and the condensation for one
+        PipelinePlanner.Plan plan = PipelinePlanner.plan(adj, adjW, ws);
+        List<List<Integer>> comps;
+        List<List<Integer>> dag;
+        List<List<int[]>> dagW;
+        List<Integer> topo;
+        if (plan.acyclic()) {
+            comps = PipelinePlanner.singletonComponents(n);
+            dag = adj;
+            // parallel edges keep their minimum weight, as in the condensation
+            dagW = CondensationBuilder.collapseParallelEdges(adjW, ws, new MetricsTracker());
+            topo = plan.probeOrder();
+        } else {
+            comps = new TarjanSCC(adj, new MetricsTracker(), ws).run();
+            MetricsTracker condM = new MetricsTracker();
+            dag = CondensationBuilder.buildCondensation(adj, comps, ws, condM);
+            dagW = CondensationBuilder.buildWeightedCondensation(adj, adjW, comps, ws, condM);
+            topo = KahnTopologicalSort.topo(dag, new MetricsTracker(), ws);
+            plan = PipelinePlanner.withCondensation(plan, topo, dagW, ws);
+        }
 
-        MetricsTracker topoM = new MetricsTracker();
-        List<Integer> topo = KahnTopologicalSort.topo(dag, topoM);
+        if (mode.equals("plan")) {
+            for (PipelinePlanner.Decision d : plan.decisions()) {
+                System.out.printf("%-13s %-16s %8.3f ms  %s%n", d.stage(), d.choice(), d.costNs() / 1e6, d.reason());
+            }
+            return;
+        }
 
         if (mode.equals("topo")) {
             System.out.println("Topo (components): " + topo);
@@ -117,34 +194,212 @@ public class Main {
             return;
         }
 
+        if (mode.equals("dom")) {
+            int src = (args.length >= 3) ? Integer.parseInt(args[2]) : 0;
+            int compSrc = SCCUtils.buildVertexToComp(comps, n)[src];
+            MetricsTracker domM = new MetricsTracker();
+            DominatorTree dom = DominatorTree.build(compSrc, topo, dag, domM);
+            System.out.println("Immediate dominators (components): " + Arrays.toString(dom.idoms()));
+            System.out.println("Single points of failure (components): " + dom.cutVertices());
+            return;
+        }
+
+        if (mode.equals("bsp")) {
+            int src = (args.length >= 3) ? Integer.parseInt(args[2]) : 0;
+            int compSrc = SCCUtils.buildVertexToComp(comps, n)[src];
+            runBsp(adjW, comps, dagW, topo, compSrc, Integer.getInteger("bsp.workers", 4));
+            return;
+        }
+
         if (mode.equals("dagsp")) {
             int src = (args.length >= 3) ? Integer.parseInt(args[2]) : 0;
             int[] compOf = SCCUtils.buildVertexToComp(comps, n);
-            int compSrc = compOf[src];
+            int compSrc = compOf[(inputRl == null) ? src : inputRl.newId(src)];
+            if (inputRl != null) {
+                // component ids follow Tarjan on the renumbered graph, so name their members
+                List<List<Integer>> members = new ArrayList<>(comps.size());
+                for (List<Integer> c : comps) members.add(inputRl.toOriginal(c));
+                System.out.println("Components (original vertices): " + members);
+            }
 
-            MetricsTracker shortM = new MetricsTracker();
-            int[] dist = DAGShortestPath.shortestFrom(compSrc, topo, dagW, shortM);
-            System.out.println("Shortest distances: " + Arrays.toString(dist));
+            // optional renumbering of the DAG for locality; results are mapped back to component ids
+            VertexRelabeling rl = dagRelabeling(System.getProperty("relabel", "none"), topo, dag.size());
+            List<List<int[]>> runW = (rl == null) ? dagW : rl.applyWeighted(dagW);
+            List<Integer> runTopo = (rl == null) ? topo : rl.toNew(topo);
+            int runSrc = (rl == null) ? compSrc : rl.newId(compSrc);
 
+            MetricsTracker shortM = new MetricsTracker();
             MetricsTracker longM = new MetricsTracker();
-            DAGLongestPath.LongestResult lr =
-                    DAGLongestPath.longestFrom(compSrc, topo, dagW, longM);
-            int[] longDist = lr.dist();
-            System.out.println("Longest distances: " + Arrays.toString(longDist));
-
-            int best = Integer.MIN_VALUE;
-            int target = -1;
-            for (int i = 0; i < longDist.length; i++) {
-                if (longDist[i] > best) {
-                    best = longDist[i];
-                    target = i;
+            // results are workspace-backed: may be longer than the DAG, valid until the next run
+            if (plan.longDistances()) {
+                long[] dist = DAGShortestPath.shortestFromLong(runSrc, runTopo, runW, shortM, ws);
+                long[] longDist = DAGLongestPath.longestFromLong(runSrc, runTopo, runW, longM, ws).dist();
+                if (rl != null) {
+                    dist = rl.toOriginal(dist);
+                    longDist = rl.toOriginal(longDist);
+                }
+                System.out.println("Shortest distances: " + format(dist, runW.size()));
+                System.out.println("Longest distances: " + format(longDist, runW.size()));
+            } else {
+                int[] dist;
+                DAGLongestPath.LongestResult lr;
+                if (plan.parallelDp()) {
+                    ParallelDAGPaths.LevelGraph levels = ParallelDAGPaths.buildLevels(runTopo, runW);
+                    dist = ParallelDAGPaths.shortestFrom(runSrc, levels, shortM, ws);
+                    lr = ParallelDAGPaths.longestFrom(runSrc, levels, longM, ws);
+                } else {
+                    dist = DAGShortestPath.shortestFrom(runSrc, runTopo, runW, shortM, ws);
+                    lr = DAGLongestPath.longestFrom(runSrc, runTopo, runW, longM, ws);
                 }
+                int[] longDist = lr.dist();
+                if (rl != null) {
+                    dist = rl.toOriginal(dist);
+                    longDist = rl.toOriginal(longDist);
+                }
+                System.out.println("Shortest distances: " + format(dist, runW.size()));
+                System.out.println("Longest distances: " + format(longDist, runW.size()));
             }
-            if (target != -1) {
-                System.out.println("Critical path (components): " +
-                        DAGLongestPath.rebuildPath(target, lr));
-                System.out.println("Critical length: " + best);
+
+            // critical path with component spans as node costs
+            ComponentWorkSpan.Result cw = ComponentWorkSpan.compute(adj, comps, work, new MetricsTracker());
+            long[] span = (rl == null) ? cw.span() : rl.toNew(cw.span());
+            DAGLongestPath.LongestLongResult crit =
+                    DAGLongestPath.longestFromLong(runSrc, runTopo, runW, span, new MetricsTracker(), ws);
+            long[] critDist = crit.dist();
+            int[] critParent = crit.parent();
+            if (rl != null) {
+                critDist = rl.toOriginal(critDist);
+                critParent = rl.parentsToOriginal(critParent);
+            }
+            // span: heaviest chain of component spans alone, in component ids
+            long[] spanDist = DAGLongestPath.heaviestByNodeCost(compSrc, topo, dag, cw.span(), new MetricsTracker()).dist();
+            printCriticalPath(critDist, critParent, cw.work(), spanDist);
+        }
+    }
+
+    /**
+     * Input graph relabeling selected by -Drelabel: bfs (BFS over the edges) or
+     * rcm (reverse Cuthill–McKee), applied before Tarjan.
+     *
+     * @return the relabeling, or null for none and topo
+     */
+    private static VertexRelabeling inputRelabeling(String kind, List<List<Integer>> adj) {
+        return switch (kind) {
+            case "none", "topo" -> null;
+            case "bfs" -> VertexRelabeling.bfs(adj);
+            case "rcm" -> VertexRelabeling.reverseCuthillMcKee(adj);
+            default -> throw new IllegalArgumentException("unknown -Drelabel=" + kind + " (none|topo|bfs|rcm)");
+        };
+    }
+
+    /**
+     * Condensation DAG relabeling selected by -Drelabel=topo (topological order).
+     *
+     * @return the relabeling, or null for the other kinds
+     */
+    private static VertexRelabeling dagRelabeling(String kind, List<Integer> topo, int n) {
+        return kind.equals("topo") ? VertexRelabeling.topological(topo, n) : null;
+    }
+
+    /** Formats the first n entries like Arrays.toString; workspace buffers may be longer. */
+    private static String format(int[] values, int n) {
+        StringJoiner sj = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < n; i++) sj.add(String.valueOf(values[i]));
+        return sj.toString();
+    }
+
+    /** Same as above for 64-bit values. */
+    private static String format(long[] values, int n) {
+        StringJoiner sj = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < n; i++) sj.add(String.valueOf(values[i]));
+        return sj.toString();
+    }
+
+    /**
+     * Prints the path to the farthest reachable component, its length and the
+     * work/span figures (span = heaviest path by component spans alone, without edge weights).
+     */
+    private static void printCriticalPath(long[] critDist, int[] parent, long[] compWork, long[] spanDist) {
+        long best = Long.MIN_VALUE;
+        long work = 0;
+        long span = 0;
+        int target = -1;
+        for (int i = 0; i < compWork.length; i++) {
+            if (critDist[i] == Long.MIN_VALUE) continue; // unreachable
+            work += compWork[i];
+            span = Math.max(span, spanDist[i]);
+            if (critDist[i] > best) {
+                best = critDist[i];
+                target = i;
             }
         }
+        List<Integer> path = DAGLongestPath.rebuildPath(target, parent);
+        System.out.println("Critical path (components): " + path);
+        System.out.println("Critical length (with component spans): " + best);
+        System.out.println("Work = " + work + ", span = " + span
+                + ", parallelism = " + ((span > 0) ? String.format("%.2f", (double) work / span) : "n/a"));
+    }
+
+    /**
+     * Streams the file through the out-of-core pipeline; limits come from
+     * -Dooc.ram.bytes, -Dooc.disk.bytes, -Dooc.chunk.edges, -Dooc.partitions.
+     */
+    private static void processOutOfCore(Path file, String[] args) throws Exception {
+        int src = (args.length >= 3) ? Integer.parseInt(args[2]) : -1;
+        OutOfCorePipeline.Limits limits = OutOfCorePipeline.Limits.fromSystemProperties();
+        Path tmp = Paths.get(System.getProperty("ooc.tmp.dir", System.getProperty("java.io.tmpdir")));
+        MetricsTracker sccM = new MetricsTracker();
+        OutOfCorePipeline.Result r = OutOfCorePipeline.run(file, tmp, limits, src, sccM);
+
+        int best = Integer.MIN_VALUE;
+        for (int d : r.longest().dist()) best = Math.max(best, d);
+        System.out.println("Vertices = " + r.n() + ", edges = " + r.edges());
+        System.out.println("SCC count = " + r.compCount() + " (" + r.partitionScans() + " partition scans, "
+                + r.edgesRead() + " edges read from disk, " + sccM.getElapsedMs() + " ms)");
+        System.out.println("Temp disk bytes = " + r.diskBytes() + ", RAM estimate bytes = " + r.ramBytes());
+        System.out.println("Topo (components) size = " + r.topo().size());
+        System.out.println("Critical length: " + best);
+    }
+
+    /**
+     * Runs SCC colouring and DAG relaxation on simulated nodes, checks them
+     * against Tarjan / DAGShortestPath and prints per-superstep statistics.
+     */
+    private static void runBsp(List<List<int[]>> adjW,
+                               List<List<Integer>> comps,
+                               List<List<int[]>> dagW,
+                               List<Integer> topo,
+                               int compSrc,
+                               int workers) throws Exception {
+        int[] label;
+        List<BspCluster.SuperstepStats> stats = new ArrayList<>();
+        try (BspCluster cluster = new BspCluster(adjW, workers)) {
+            label = cluster.scc();
+            stats.addAll(cluster.stats());
+        }
+        int[] dist;
+        try (BspCluster cluster = new BspCluster(dagW, workers)) {
+            dist = cluster.shortestFrom(compSrc);
+            stats.addAll(cluster.stats());
+        }
+
+        boolean sccOk = true;
+        for (List<Integer> comp : comps) {
+            for (int v : comp) sccOk &= label[v] == label[comp.get(0)];
+        }
+        Set<Integer> labels = new HashSet<>();
+        for (int l : label) labels.add(l);
+        sccOk &= labels.size() == comps.size();
+        int[] expected = DAGShortestPath.shortestFrom(compSrc, topo, dagW, new MetricsTracker());
+
+        System.out.println("Workers = " + workers);
+        System.out.println("program        step  messages     bytes  max_ms  median_ms  straggler_ms");
+        for (BspCluster.SuperstepStats st : stats) {
+            System.out.printf("%-13s %5d %9d %9d %7.3f %10.3f %13.3f%n", st.program(), st.step(),
+                    st.messages(), st.bytes(), st.maxComputeNs() / 1e6, st.medianComputeNs() / 1e6,
+                    st.stragglerNs() / 1e6);
+        }
+        System.out.println("SCC matches Tarjan: " + sccOk);
+        System.out.println("Distances match DAGShortestPath: " + Arrays.equals(dist, expected));
     }
 }
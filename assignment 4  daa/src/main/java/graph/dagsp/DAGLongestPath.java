@@ -1,5 +1,6 @@
 package graph.dagsp;
 
+import graph.util.GraphWorkspace;
 import metrics.MetricsTracker;
 
 import java.util.*;
@@ -15,6 +16,9 @@ public final class DAGLongestPath {
     /** Result structure containing distances and parent links. */
     public record LongestResult(int[] dist, int[] parent) {}
 
+    /** Same as {@link LongestResult} with 64-bit distances; unreachable = Long.MIN_VALUE. */
+    public record LongestLongResult(long[] dist, int[] parent) {}
+
     /**
      * Computes the longest distances from a single source in a DAG.
      *
@@ -29,10 +33,44 @@ public final class DAGLongestPath {
                                             List<List<int[]>> g,
                                             MetricsTracker m) {
         int n = g.size();
-        int[] dist = new int[n];
-        int[] parent = new int[n];
-        Arrays.fill(dist, Integer.MIN_VALUE);
-        Arrays.fill(parent, -1);
+        m.recordBytes(8L * n);
+        return longestFrom(src, topo, g, m, new int[n], new int[n]);
+    }
+
+    /**
+     * Same as above, relaxing into dist and parent buffers of a shared workspace
+     * instead of allocating. The result holds those buffers: they may be longer
+     * than g.size() (entries past n are unspecified) and are only valid until the
+     * next call on the same workspace.
+     */
+    public static LongestResult longestFrom(int src,
+                                            List<Integer> topo,
+                                            List<List<int[]>> g,
+                                            MetricsTracker m,
+                                            GraphWorkspace ws) {
+        int n = g.size();
+        ws.beginStage();
+        int[] dist = ws.ints("dagsp.long.dist", n);
+        int[] parent = ws.ints("dagsp.long.parent", n);
+        m.recordBytes(ws.stageBytes());
+        return longestFrom(src, topo, g, m, dist, parent);
+    }
+
+    /**
+     * Same as above, relaxing into caller-owned arrays of length at least
+     * g.size(); only their first n entries are written.
+     *
+     * @return LongestResult(dist, parent) wrapping the given arrays
+     */
+    public static LongestResult longestFrom(int src,
+                                            List<Integer> topo,
+                                            List<List<int[]>> g,
+                                            MetricsTracker m,
+                                            int[] dist,
+                                            int[] parent) {
+        int n = g.size();
+        Arrays.fill(dist, 0, n, Integer.MIN_VALUE);
+        Arrays.fill(parent, 0, n, -1);
         dist[src] = 0;
 
         m.start();
@@ -53,6 +91,137 @@ public final class DAGLongestPath {
         return new LongestResult(dist, parent);
     }
 
+    /**
+     * Same DP with 64-bit distances, for graphs whose path weights may overflow int.
+     *
+     * @return LongestLongResult(dist, parent)
+     */
+    public static LongestLongResult longestFromLong(int src,
+                                                    List<Integer> topo,
+                                                    List<List<int[]>> g,
+                                                    MetricsTracker m) {
+        return longestFromLong(src, topo, g, null, m);
+    }
+
+    /**
+     * Same as above with the dist and parent buffers of a shared workspace; valid
+     * until the next call on that workspace, entries past g.size() are unspecified.
+     */
+    public static LongestLongResult longestFromLong(int src,
+                                                    List<Integer> topo,
+                                                    List<List<int[]>> g,
+                                                    MetricsTracker m,
+                                                    GraphWorkspace ws) {
+        return longestFromLong(src, topo, g, null, m, ws);
+    }
+
+    /**
+     * Critical path with node costs: a path's length is the sum of its edge
+     * weights plus the cost of every node on it, source included.
+     *
+     * @param nodeCost cost per vertex (e.g. component span from ComponentWorkSpan), null for none
+     * @return LongestLongResult(dist, parent); dist[v] includes nodeCost[v]
+     */
+    public static LongestLongResult longestFromLong(int src,
+                                                    List<Integer> topo,
+                                                    List<List<int[]>> g,
+                                                    long[] nodeCost,
+                                                    MetricsTracker m) {
+        int n = g.size();
+        m.recordBytes(12L * n);
+        return longestFromLong(src, topo, g, nodeCost, m, new long[n], new int[n]);
+    }
+
+    /**
+     * Same as above with the dist and parent buffers of a shared workspace; valid
+     * until the next call on that workspace, entries past g.size() are unspecified.
+     */
+    public static LongestLongResult longestFromLong(int src,
+                                                    List<Integer> topo,
+                                                    List<List<int[]>> g,
+                                                    long[] nodeCost,
+                                                    MetricsTracker m,
+                                                    GraphWorkspace ws) {
+        int n = g.size();
+        ws.beginStage();
+        long[] dist = ws.longs("dagsp.long.dist64", n);
+        int[] parent = ws.ints("dagsp.long.parent", n);
+        m.recordBytes(ws.stageBytes());
+        return longestFromLong(src, topo, g, nodeCost, m, dist, parent);
+    }
+
+    /**
+     * Same as above into caller-owned arrays of length at least g.size().
+     *
+     * @return LongestLongResult(dist, parent) wrapping the given arrays
+     */
+    public static LongestLongResult longestFromLong(int src,
+                                                    List<Integer> topo,
+                                                    List<List<int[]>> g,
+                                                    long[] nodeCost,
+                                                    MetricsTracker m,
+                                                    long[] dist,
+                                                    int[] parent) {
+        int n = g.size();
+        Arrays.fill(dist, 0, n, Long.MIN_VALUE);
+        Arrays.fill(parent, 0, n, -1);
+        dist[src] = (nodeCost == null) ? 0 : nodeCost[src];
+
+        m.start();
+        for (int v : topo) {
+            if (dist[v] == Long.MIN_VALUE) continue; // unreachable
+            for (int[] e : g.get(v)) {
+                int to = e[0];
+                long nd = dist[v] + e[1] + ((nodeCost == null) ? 0 : nodeCost[to]);
+                if (nd > dist[to]) {
+                    dist[to] = nd;
+                    parent[to] = v;
+                    m.incRelax();
+                }
+            }
+        }
+        m.stop();
+        return new LongestLongResult(dist, parent);
+    }
+
+    /**
+     * Heaviest path by node cost alone; edge weights play no part. With
+     * component spans as costs this is the span of the schedule: the longest
+     * chain of dependent work from the source.
+     *
+     * @param g        DAG adjacency list
+     * @param nodeCost cost per vertex
+     * @return LongestLongResult(dist, parent); dist[v] includes nodeCost[v]
+     */
+    public static LongestLongResult heaviestByNodeCost(int src,
+                                                       List<Integer> topo,
+                                                       List<List<Integer>> g,
+                                                       long[] nodeCost,
+                                                       MetricsTracker m) {
+        int n = g.size();
+        long[] dist = new long[n];
+        int[] parent = new int[n];
+        m.recordBytes(12L * n);
+        Arrays.fill(dist, Long.MIN_VALUE);
+        Arrays.fill(parent, -1);
+        dist[src] = nodeCost[src];
+
+        m.start();
+        for (int v : topo) {
+            if (dist[v] == Long.MIN_VALUE) continue; // unreachable
+            for (int to : g.get(v)) {
+                long nd = dist[v] + nodeCost[to];
+                if (nd > dist[to]) {
+                    dist[to] = nd;
+                    parent[to] = v;
+                    m.incRelax();
+                }
+            }
+        }
+        m.stop();
+        return new LongestLongResult(dist, parent);
+    }
+
     /**
      * Reconstructs a path from the parent array.
      *
@@ -61,11 +230,22 @@ public final class DAGLongestPath {
      * @return list of vertices along the path
      */
     public static List<Integer> rebuildPath(int target, LongestResult res) {
+        return rebuildPath(target, res.parent());
+    }
+
+    /**
+     * Reconstructs a path from a parent array.
+     *
+     * @param target destination vertex
+     * @param parent parent links, -1 at the path start
+     * @return list of vertices along the path
+     */
+    public static List<Integer> rebuildPath(int target, int[] parent) {
         List<Integer> path = new ArrayList<>();
-        for (int v = target; v != -1; v = res.parent()[v]) {
+        for (int v = target; v != -1; v = parent[v]) {
             path.add(v);
         }
         Collections.reverse(path);
         return path;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package graph.dagsp;
 
 import java.util.Arrays;
 import java.util.List;
+import graph.util.GraphWorkspace;
 import metrics.MetricsTracker;
 
 /**
@@ -12,13 +13,48 @@ public class DAGShortestPath {
 
     public static final int INF = 1_000_000_000;
 
+    /** Unreachable marker of {@link #shortestFromLong}. */
+    public static final long INF_LONG = Long.MAX_VALUE / 4;
+
     public static int[] shortestFrom(int src,
                                      List<Integer> topo,
                                      List<List<int[]>> g,
                                      MetricsTracker m) {
         int n = g.size();
-        int[] dist = new int[n];
-        Arrays.fill(dist, INF);
+        m.recordBytes(4L * n);
+        return shortestFrom(src, topo, g, m, new int[n]);
+    }
+
+    /**
+     * Same as above, relaxing into the dist buffer of a shared workspace instead
+     * of allocating. The returned array is that buffer: it may be longer than
+     * g.size() (entries past n are unspecified) and is only valid until the next
+     * call on the same workspace.
+     */
+    public static int[] shortestFrom(int src,
+                                     List<Integer> topo,
+                                     List<List<int[]>> g,
+                                     MetricsTracker m,
+                                     GraphWorkspace ws) {
+        ws.beginStage();
+        int[] dist = ws.ints("dagsp.short.dist", g.size());
+        m.recordBytes(ws.stageBytes());
+        return shortestFrom(src, topo, g, m, dist);
+    }
+
+    /**
+     * Same as above, relaxing into a caller-owned array of length at least
+     * g.size(); only its first n entries are written.
+     *
+     * @return dist
+     */
+    public static int[] shortestFrom(int src,
+                                     List<Integer> topo,
+                                     List<List<int[]>> g,
+                                     MetricsTracker m,
+                                     int[] dist) {
+        int n = g.size();
+        Arrays.fill(dist, 0, n, INF);
         dist[src] = 0;
 
         m.start();
@@ -37,4 +73,61 @@ public class DAGShortestPath {
         m.stop();
         return dist;
     }
-}
\ No newline at end of file
+
+    /**
+     * Same relaxation with 64-bit distances, for graphs whose path weights
+     * may not stay below {@link #INF}. Unreachable vertices get {@link #INF_LONG}.
+     */
+    public static long[] shortestFromLong(int src,
+                                          List<Integer> topo,
+                                          List<List<int[]>> g,
+                                          MetricsTracker m) {
+        int n = g.size();
+        m.recordBytes(8L * n);
+        return shortestFromLong(src, topo, g, m, new long[n]);
+    }
+
+    /**
+     * Same as above with the dist buffer of a shared workspace; valid until the
+     * next call on that workspace, entries past g.size() are unspecified.
+     */
+    public static long[] shortestFromLong(int src,
+                                          List<Integer> topo,
+                                          List<List<int[]>> g,
+                                          MetricsTracker m,
+                                          GraphWorkspace ws) {
+        ws.beginStage();
+        long[] dist = ws.longs("dagsp.short.dist64", g.size());
+        m.recordBytes(ws.stageBytes());
+        return shortestFromLong(src, topo, g, m, dist);
+    }
+
+    /**
+     * Same as above into a caller-owned array of length at least g.size().
+     *
+     * @return dist
+     */
+    public static long[] shortestFromLong(int src,
+                                          List<Integer> topo,
+                                          List<List<int[]>> g,
+                                          MetricsTracker m,
+                                          long[] dist) {
+        Arrays.fill(dist, 0, g.size(), INF_LONG);
+        dist[src] = 0;
+
+        m.start();
+        for (int v : topo) {
+            if (dist[v] == INF_LONG) continue;
+            for (int[] e : g.get(v)) {
+                int to = e[0];
+                long nd = dist[v] + e[1];
+                if (nd < dist[to]) {
+                    dist[to] = nd;
+                    m.incRelax();
+                }
+            }
+        }
+        m.stop();
+        return dist;
+    }
+}
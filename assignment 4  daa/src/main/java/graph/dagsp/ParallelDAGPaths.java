@@ -0,0 +1,242 @@
+package graph.dagsp;
+
+import graph.util.GraphWorkspace;
+import metrics.MetricsTracker;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Level-parallel shortest / longest path DP for a DAG.
+ * The DAG is split into topological levels (a vertex sits one level below
+ * its deepest predecessor), and every vertex of a level is relaxed in pull
+ * style by reading its predecessors from a reverse CSR. Vertices of the
+ * same level never write to each other, so no atomics are needed.
+ *
+ * Results (including relax counts and the parent tie-breaking of
+ * {@link DAGLongestPath}) are identical to the sequential engines.
+ */
+public final class ParallelDAGPaths {
+
+    /** Levels smaller than this are relaxed on the calling thread. */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
+    private ParallelDAGPaths() {}
+
+    /**
+     * Reverse CSR grouped by topological level. Built once per DAG and
+     * shared by the shortest and longest passes.
+     *
+     * @param n          number of vertices
+     * @param order      vertices grouped by level
+     * @param levelStart level i occupies order[levelStart[i] .. levelStart[i+1])
+     * @param inStart    incoming edges of v are inFrom/inW[inStart[v] .. inStart[v+1])
+     * @param inFrom     predecessor of each incoming edge
+     * @param inW        weight of each incoming edge
+     */
+    public record LevelGraph(int n,
+                             int[] order,
+                             int[] levelStart,
+                             int[] inStart,
+                             int[] inFrom,
+                             int[] inW) {
+
+        /** @return number of topological levels */
+        public int levels() {
+            return levelStart.length - 1;
+        }
+    }
+
+    /**
+     * Builds the level partition and reverse CSR.
+     * Incoming edges of every vertex are stored in the order the sequential
+     * engines would relax them (predecessor topo position, then edge index).
+     * Vertices missing from {@code topo} are never relaxed from, exactly as in
+     * the sequential engines, and are placed in a final level of their own.
+     *
+     * @param topo topological order of DAG
+     * @param g    weighted DAG: list of int[]{to, weight}
+     * @return level graph
+     */
+    public static LevelGraph buildLevels(List<Integer> topo, List<List<int[]>> g) {
+        int n = g.size();
+        int[] level = new int[n];
+        boolean[] inTopo = new boolean[n];
+        int[] inStart = new int[n + 1];
+        int maxLevel = 0;
+
+        for (int v : topo) {
+            inTopo[v] = true;
+            for (int[] e : g.get(v)) {
+                inStart[e[0] + 1]++;
+                if (level[v] + 1 > level[e[0]]) {
+                    level[e[0]] = level[v] + 1;
+                }
+            }
+            maxLevel = Math.max(maxLevel, level[v]);
+        }
+        for (int v = 0; v < n; v++) {
+            inStart[v + 1] += inStart[v];
+        }
+
+        int[] inFrom = new int[inStart[n]];
+        int[] inW = new int[inStart[n]];
+        int[] fill = Arrays.copyOf(inStart, n);
+        for (int v : topo) {
+            for (int[] e : g.get(v)) {
+                int slot = fill[e[0]]++;
+                inFrom[slot] = v;
+                inW[slot] = e[1];
+            }
+        }
+
+        // counting sort of vertices by level; vertices outside topo go last
+        int levels = maxLevel + 2;
+        int[] levelStart = new int[levels + 1];
+        for (int v = 0; v < n; v++) {
+            int l = inTopo[v] ? level[v] : levels - 1;
+            levelStart[l + 1]++;
+        }
+        for (int l = 0; l < levels; l++) {
+            levelStart[l + 1] += levelStart[l];
+        }
+        int[] order = new int[n];
+        int[] pos = Arrays.copyOf(levelStart, levels);
+        for (int v : topo) {
+            order[pos[level[v]]++] = v;
+        }
+        for (int v = 0; v < n; v++) {
+            if (!inTopo[v]) order[pos[levels - 1]++] = v;
+        }
+        return new LevelGraph(n, order, levelStart, inStart, inFrom, inW);
+    }
+
+    /**
+     * Parallel counterpart of {@link DAGShortestPath#shortestFrom}.
+     *
+     * @param src starting vertex (or component ID)
+     * @param lg  level graph from {@link #buildLevels}
+     * @param m   metrics tracker
+     * @return shortest distances, {@link DAGShortestPath#INF} if unreachable
+     */
+    public static int[] shortestFrom(int src, LevelGraph lg, MetricsTracker m) {
+        m.recordBytes(4L * lg.n());
+        return shortestFrom(src, lg, m, new int[lg.n()]);
+    }
+
+    /**
+     * Same as above with the dist buffer of a shared workspace (the slot the
+     * sequential engine uses); valid until the next call on that workspace.
+     */
+    public static int[] shortestFrom(int src, LevelGraph lg, MetricsTracker m, GraphWorkspace ws) {
+        ws.beginStage();
+        int[] dist = ws.ints("dagsp.short.dist", lg.n());
+        m.recordBytes(ws.stageBytes());
+        return shortestFrom(src, lg, m, dist);
+    }
+
+    /**
+     * Same as above into a caller-owned array of length at least lg.n().
+     * Every vertex is written, so the array need not be initialized.
+     *
+     * @return dist
+     */
+    public static int[] shortestFrom(int src, LevelGraph lg, MetricsTracker m, int[] dist) {
+        m.start();
+        long relaxed = 0;
+        for (int l = 0; l < lg.levels(); l++) {
+            relaxed += range(lg, l).mapToLong(i -> pullShortest(lg.order()[i], src, lg, dist)).sum();
+        }
+        m.stop();
+        m.addRelax(relaxed);
+        return dist;
+    }
+
+    /**
+     * Parallel counterpart of {@link DAGLongestPath#longestFrom}.
+     *
+     * @param src starting vertex (or component ID)
+     * @param lg  level graph from {@link #buildLevels}
+     * @param m   metrics tracker
+     * @return LongestResult(dist, parent)
+     */
+    public static DAGLongestPath.LongestResult longestFrom(int src, LevelGraph lg, MetricsTracker m) {
+        m.recordBytes(8L * lg.n());
+        return longestFrom(src, lg, m, new int[lg.n()], new int[lg.n()]);
+    }
+
+    /**
+     * Same as above with the dist and parent buffers of a shared workspace;
+     * valid until the next call on that workspace.
+     */
+    public static DAGLongestPath.LongestResult longestFrom(int src, LevelGraph lg, MetricsTracker m,
+                                                           GraphWorkspace ws) {
+        ws.beginStage();
+        int[] dist = ws.ints("dagsp.long.dist", lg.n());
+        int[] parent = ws.ints("dagsp.long.parent", lg.n());
+        m.recordBytes(ws.stageBytes());
+        return longestFrom(src, lg, m, dist, parent);
+    }
+
+    /**
+     * Same as above into caller-owned arrays of length at least lg.n().
+     *
+     * @return LongestResult(dist, parent) wrapping the given arrays
+     */
+    public static DAGLongestPath.LongestResult longestFrom(int src, LevelGraph lg, MetricsTracker m,
+                                                           int[] dist, int[] parent) {
+        m.start();
+        long relaxed = 0;
+        for (int l = 0; l < lg.levels(); l++) {
+            relaxed += range(lg, l).mapToLong(i -> pullLongest(lg.order()[i], src, lg, dist, parent)).sum();
+        }
+        m.stop();
+        m.addRelax(relaxed);
+        return new DAGLongestPath.LongestResult(dist, parent);
+    }
+
+    /** Indices of one level in {@code order}, parallel when the level is wide. */
+    private static IntStream range(LevelGraph lg, int level) {
+        int from = lg.levelStart()[level];
+        int to = lg.levelStart()[level + 1];
+        IntStream s = IntStream.range(from, to);
+        return (to - from >= PARALLEL_THRESHOLD) ? s.parallel() : s;
+    }
+
+    /** Computes dist[v] from its predecessors; returns the number of improvements. */
+    private static int pullShortest(int v, int src, LevelGraph lg, int[] dist) {
+        int best = (v == src) ? 0 : DAGShortestPath.INF;
+        int improved = 0;
+        for (int i = lg.inStart()[v]; i < lg.inStart()[v + 1]; i++) {
+            int d = dist[lg.inFrom()[i]];
+            if (d == DAGShortestPath.INF) continue;
+            int nd = d + lg.inW()[i];
+            if (nd < best) {
+                best = nd;
+                improved++;
+            }
+        }
+        dist[v] = best;
+        return improved;
+    }
+
+    /** Computes dist[v] and parent[v]; the first strictly better predecessor wins. */
+    private static int pullLongest(int v, int src, LevelGraph lg, int[] dist, int[] parent) {
+        int best = (v == src) ? 0 : Integer.MIN_VALUE;
+        int par = -1;
+        int improved = 0;
+        for (int i = lg.inStart()[v]; i < lg.inStart()[v + 1]; i++) {
+            int d = dist[lg.inFrom()[i]];
+            if (d == Integer.MIN_VALUE) continue;
+            int nd = d + lg.inW()[i];
+            if (nd > best) {
+                best = nd;
+                par = lg.inFrom()[i];
+                improved++;
+            }
+        }
+        dist[v] = best;
+        parent[v] = par;
+        return improved;
+    }
+}
@@ -0,0 +1,250 @@
+package graph.dist;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+
+import static graph.dist.BspWorker.*;
+
+/**
+ * Bulk-synchronous simulation of the SCC → DAG-SP pipeline on one machine.
+ * N worker nodes run in-process on their own threads with their own
+ * vertex partition (v % N) and talk to this coordinator only over loopback
+ * TCP sockets. Each superstep the coordinator routes cross-partition
+ * messages and acts as the barrier.
+ *
+ * Per superstep it records the bytes and messages that crossed the sockets
+ * and the straggler time (slowest worker minus median worker compute time).
+ */
+public final class BspCluster implements AutoCloseable {
+
+    /** Statistics of one superstep. */
+    public record SuperstepStats(String program,
+                                 int step,
+                                 long messages,
+                                 long bytes,
+                                 long maxComputeNs,
+                                 long medianComputeNs) {
+        /** @return time the barrier waited on the slowest worker beyond the median one */
+        public long stragglerNs() {
+            return maxComputeNs - medianComputeNs;
+        }
+    }
+
+    private final int n;
+    private final int workers;
+    private final ServerSocket server;
+    private final Thread[] threads;
+    private final Socket[] sockets;
+    private final DataInputStream[] in;
+    private final DataOutputStream[] out;
+    private final CountingStream counter = new CountingStream();
+    private final List<SuperstepStats> stats = new ArrayList<>();
+
+    /**
+     * Starts the workers and waits until each one has connected.
+     *
+     * @param g       weighted graph: list of int[]{to, weight}
+     * @param workers number of simulated nodes
+     */
+    public BspCluster(List<List<int[]>> g, int workers) throws IOException {
+        if (workers <= 0) throw new IllegalArgumentException("workers must be positive: " + workers);
+        this.n = g.size();
+        this.workers = workers;
+        this.server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress());
+        this.threads = new Thread[workers];
+        this.sockets = new Socket[workers];
+        this.in = new DataInputStream[workers];
+        this.out = new DataOutputStream[workers];
+
+        for (int i = 0; i < workers; i++) {
+            threads[i] = new Thread(new BspWorker(i, workers, server.getLocalPort(), g), "bsp-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (int i = 0; i < workers; i++) {
+            Socket s = server.accept();
+            DataInputStream din = new DataInputStream(new BufferedInputStream(counter.in(s.getInputStream())));
+            int id = din.readInt();
+            sockets[id] = s;
+            in[id] = din;
+            out[id] = new DataOutputStream(new BufferedOutputStream(counter.out(s.getOutputStream())));
+        }
+    }
+
+    /**
+     * Vertex-partitioned SCC colouring: forward max-colour propagation, then
+     * backward marking from each colour root, repeated on the remaining vertices.
+     *
+     * @return component label per vertex (the largest vertex id of its SCC)
+     */
+    public int[] scc() throws IOException {
+        boolean first = true;
+        int remaining;
+        do {
+            runProgram(P_COLOR_FWD, "scc-forward", first ? 1 : 0);
+            runProgram(P_COLOR_BWD, "scc-backward", 0);
+            first = false;
+            remaining = 0;
+            for (DataOutputStream o : out) {
+                o.writeInt(CMD_FINALIZE);
+                o.flush();
+            }
+            for (DataInputStream i : in) remaining += i.readInt();
+        } while (remaining > 0);
+        return gather(P_COLOR_FWD);
+    }
+
+    /**
+     * Bellman-style relaxation in supersteps.
+     *
+     * @param src source vertex
+     * @return shortest distances, {@link graph.dagsp.DAGShortestPath#INF} if unreachable
+     */
+    public int[] shortestFrom(int src) throws IOException {
+        runProgram(P_SSSP, "sssp", src);
+        return gather(P_SSSP);
+    }
+
+    /** @return statistics of every superstep run so far */
+    public List<SuperstepStats> stats() {
+        return Collections.unmodifiableList(stats);
+    }
+
+    /** Runs one vertex program to quiescence (no messages in flight anywhere). */
+    private void runProgram(int program, String name, long arg) throws IOException {
+        long bytesBefore = counter.total();
+        for (DataOutputStream o : out) {
+            o.writeInt(CMD_START);
+            o.writeInt(program);
+            o.writeLong(arg);
+            o.flush();
+        }
+        List<List<long[]>> inbox = newInboxes();
+        int step = 0;
+        while (true) {
+            long[] compute = new long[workers];
+            long messages = 0;
+            long pending = 0;
+            for (int w = 0; w < workers; w++) {
+                compute[w] = in[w].readLong();
+                pending += in[w].readInt();
+                int count = in[w].readInt();
+                messages += count;
+                for (int k = 0; k < count; k++) {
+                    int target = in[w].readInt();
+                    long value = in[w].readLong();
+                    inbox.get(target % workers).add(new long[]{target, value});
+                }
+            }
+            Arrays.sort(compute);
+            stats.add(new SuperstepStats(name, step, messages, counter.total() - bytesBefore,
+                    compute[workers - 1], compute[workers / 2]));
+            if (messages == 0 && pending == 0) return;
+
+            // barrier passed: deliver and start the next superstep
+            bytesBefore = counter.total();
+            for (int w = 0; w < workers; w++) {
+                out[w].writeInt(CMD_STEP);
+                out[w].writeInt(inbox.get(w).size());
+                for (long[] m : inbox.get(w)) {
+                    out[w].writeInt((int) m[0]);
+                    out[w].writeLong(m[1]);
+                }
+                out[w].flush();
+            }
+            inbox = newInboxes();
+            step++;
+        }
+    }
+
+    private List<List<long[]>> newInboxes() {
+        List<List<long[]>> inbox = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) inbox.add(new ArrayList<>());
+        return inbox;
+    }
+
+    private int[] gather(int program) throws IOException {
+        for (DataOutputStream o : out) {
+            o.writeInt(CMD_GATHER);
+            o.writeInt(program);
+            o.flush();
+        }
+        int[] values = new int[n];
+        for (DataInputStream i : in) {
+            int count = i.readInt();
+            for (int k = 0; k < count; k++) {
+                int v = i.readInt();
+                values[v] = i.readInt();
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int w = 0; w < workers; w++) {
+            if (out[w] == null) continue;
+            try {
+                out[w].writeInt(CMD_SHUTDOWN);
+                out[w].flush();
+            } catch (IOException ignored) {
+                // worker already gone
+            }
+            sockets[w].close();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        server.close();
+    }
+
+    /** Counts raw bytes crossing the coordinator's sockets in both directions. */
+    private static final class CountingStream {
+        private long total;
+
+        long total() {
+            return total;
+        }
+
+        InputStream in(InputStream raw) {
+            return new FilterInputStream(raw) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) total++;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buf, int off, int len) throws IOException {
+                    int r = super.read(buf, off, len);
+                    if (r > 0) total += r;
+                    return r;
+                }
+            };
+        }
+
+        OutputStream out(OutputStream raw) {
+            return new FilterOutputStream(raw) {
+                @Override
+                public void write(int b) throws IOException {
+                    super.write(b);
+                    total++;
+                }
+
+                @Override
+                public void write(byte[] buf, int off, int len) throws IOException {
+                    out.write(buf, off, len);
+                    total += len;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package graph.dist;
+
+import graph.dagsp.DAGShortestPath;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.*;
+
+/**
+ * One simulated node of a {@link BspCluster}.
+ * Owns the vertices v with {@code v % workers == id}, together with their
+ * outgoing and incoming edges, and talks to the coordinator only through
+ * its socket. Messages are (target vertex, long value) pairs; messages for
+ * owned vertices stay local and are delivered in the next superstep.
+ */
+final class BspWorker implements Runnable {
+
+    static final int CMD_START = 1;
+    static final int CMD_STEP = 2;
+    static final int CMD_FINALIZE = 3;
+    static final int CMD_GATHER = 4;
+    static final int CMD_SHUTDOWN = 5;
+
+    /** Forward max-colour propagation (SCC colouring, phase 1). */
+    static final int P_COLOR_FWD = 1;
+    /** Backward marking from colour roots (SCC colouring, phase 2). */
+    static final int P_COLOR_BWD = 2;
+    /** Bellman-style single-source shortest paths. */
+    static final int P_SSSP = 3;
+
+    private final int id;
+    private final int workers;
+    private final int port;
+    private final int local;            // number of owned vertices
+    private final int[][] outTo;        // per owned vertex
+    private final int[][] outW;
+    private final int[][] inFrom;
+
+    private final int[] color;
+    private final int[] comp;
+    private final boolean[] active;
+    private final boolean[] marked;
+    private final long[] dist;
+    private final boolean[] dirty;      // vertex already queued to send this superstep
+
+    private int program;
+    private final List<long[]> pendingLocal = new ArrayList<>();
+    private final List<long[]> remote = new ArrayList<>();
+
+    BspWorker(int id, int workers, int port, List<List<int[]>> g) {
+        this.id = id;
+        this.workers = workers;
+        this.port = port;
+        int n = g.size();
+        this.local = (n - id + workers - 1) / workers;
+        this.outTo = new int[local][];
+        this.outW = new int[local][];
+        this.inFrom = new int[local][];
+
+        int[] inCount = new int[local];
+        for (int u = 0; u < n; u++) {
+            for (int[] e : g.get(u)) {
+                if (owner(e[0]) == id) inCount[e[0] / workers]++;
+            }
+        }
+        for (int i = 0; i < local; i++) inFrom[i] = new int[inCount[i]];
+        Arrays.fill(inCount, 0);
+        for (int u = 0; u < n; u++) {
+            for (int[] e : g.get(u)) {
+                if (owner(e[0]) == id) {
+                    int li = e[0] / workers;
+                    inFrom[li][inCount[li]++] = u;
+                }
+            }
+        }
+        for (int i = 0; i < local; i++) {
+            List<int[]> out = g.get(i * workers + id);
+            outTo[i] = new int[out.size()];
+            outW[i] = new int[out.size()];
+            for (int k = 0; k < out.size(); k++) {
+                outTo[i][k] = out.get(k)[0];
+                outW[i][k] = out.get(k)[1];
+            }
+        }
+
+        this.color = new int[local];
+        this.comp = new int[local];
+        this.active = new boolean[local];
+        this.marked = new boolean[local];
+        this.dist = new long[local];
+        this.dirty = new boolean[local];
+    }
+
+    private int owner(int v) {
+        return v % workers;
+    }
+
+    private int global(int li) {
+        return li * workers + id;
+    }
+
+    @Override
+    public void run() {
+        try (Socket s = new Socket(java.net.InetAddress.getLoopbackAddress(), port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            out.writeInt(id);
+            out.flush();
+            while (true) {
+                int cmd = in.readInt();
+                switch (cmd) {
+                    case CMD_START -> {
+                        int p = in.readInt();
+                        long arg = in.readLong();
+                        long t0 = System.nanoTime();
+                        start(p, arg);
+                        reply(out, System.nanoTime() - t0);
+                    }
+                    case CMD_STEP -> {
+                        int count = in.readInt();
+                        List<long[]> inbox = new ArrayList<>(pendingLocal);
+                        pendingLocal.clear();
+                        for (int i = 0; i < count; i++) {
+                            inbox.add(new long[]{in.readInt(), in.readLong()});
+                        }
+                        long t0 = System.nanoTime();
+                        step(inbox);
+                        reply(out, System.nanoTime() - t0);
+                    }
+                    case CMD_FINALIZE -> {
+                        out.writeInt(finalizeScc());
+                        out.flush();
+                    }
+                    case CMD_GATHER -> {
+                        int p = in.readInt();
+                        out.writeInt(local);
+                        for (int i = 0; i < local; i++) {
+                            out.writeInt(global(i));
+                            out.writeInt(p == P_SSSP ? (int) Math.min(dist[i], DAGShortestPath.INF) : comp[i]);
+                        }
+                        out.flush();
+                    }
+                    case CMD_SHUTDOWN -> {
+                        return;
+                    }
+                    default -> throw new IllegalStateException("unknown command " + cmd);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("worker " + id + " failed", e);
+        }
+    }
+
+    /** Superstep reply: compute time, local backlog, then remote messages. */
+    private void reply(DataOutputStream out, long computeNs) throws IOException {
+        out.writeLong(computeNs);
+        out.writeInt(pendingLocal.size());
+        out.writeInt(remote.size());
+        for (long[] m : remote) {
+            out.writeInt((int) m[0]);
+            out.writeLong(m[1]);
+        }
+        remote.clear();
+        out.flush();
+    }
+
+    private void send(int target, long value) {
+        if (owner(target) == id) {
+            pendingLocal.add(new long[]{target, value});
+        } else {
+            remote.add(new long[]{target, value});
+        }
+    }
+
+    /** Superstep 0 of a program. */
+    private void start(int p, long arg) {
+        program = p;
+        pendingLocal.clear();
+        switch (p) {
+            case P_COLOR_FWD -> {
+                if (arg == 1) { // first round of the SCC algorithm
+                    Arrays.fill(active, true);
+                    Arrays.fill(marked, false);
+                    Arrays.fill(comp, -1);
+                }
+                for (int i = 0; i < local; i++) {
+                    if (!active[i]) continue;
+                    color[i] = global(i);
+                    for (int to : outTo[i]) send(to, color[i]);
+                }
+            }
+            case P_COLOR_BWD -> {
+                for (int i = 0; i < local; i++) {
+                    if (active[i] && color[i] == global(i)) {
+                        marked[i] = true;
+                        for (int from : inFrom[i]) send(from, color[i]);
+                    }
+                }
+            }
+            case P_SSSP -> {
+                Arrays.fill(dist, DAGShortestPath.INF);
+                int src = (int) arg;
+                if (owner(src) == id) {
+                    int li = src / workers;
+                    dist[li] = 0;
+                    for (int k = 0; k < outTo[li].length; k++) send(outTo[li][k], outW[li][k]);
+                }
+            }
+            default -> throw new IllegalStateException("unknown program " + p);
+        }
+    }
+
+    /** Superstep k > 0: apply inbound messages, then send along changed vertices. */
+    private void step(List<long[]> inbox) {
+        List<Integer> changed = new ArrayList<>();
+        for (long[] m : inbox) {
+            int li = (int) m[0] / workers;
+            long val = m[1];
+            boolean updated = false;
+            switch (program) {
+                case P_COLOR_FWD -> {
+                    if (active[li] && val > color[li]) {
+                        color[li] = (int) val;
+                        updated = true;
+                    }
+                }
+                case P_COLOR_BWD -> {
+                    if (active[li] && !marked[li] && color[li] == val) {
+                        marked[li] = true;
+                        updated = true;
+                    }
+                }
+                case P_SSSP -> {
+                    if (val < dist[li] && val < DAGShortestPath.INF) {
+                        dist[li] = val;
+                        updated = true;
+                    }
+                }
+                default -> throw new IllegalStateException("unknown program " + program);
+            }
+            if (updated && !dirty[li]) {
+                dirty[li] = true;
+                changed.add(li);
+            }
+        }
+        for (int li : changed) {
+            dirty[li] = false;
+            switch (program) {
+                case P_COLOR_FWD -> {
+                    for (int to : outTo[li]) send(to, color[li]);
+                }
+                case P_COLOR_BWD -> {
+                    for (int from : inFrom[li]) send(from, color[li]);
+                }
+                default -> {
+                    for (int k = 0; k < outTo[li].length; k++) send(outTo[li][k], dist[li] + outW[li][k]);
+                }
+            }
+        }
+    }
+
+    /** Marked vertices take their root colour as component id; returns vertices still active. */
+    private int finalizeScc() {
+        int remaining = 0;
+        for (int i = 0; i < local; i++) {
+            if (marked[i]) {
+                comp[i] = color[i];
+                active[i] = false;
+                marked[i] = false;
+            }
+            if (active[i]) remaining++;
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,205 @@
+package graph.dom;
+
+import metrics.MetricsTracker;
+
+import java.util.*;
+
+/**
+ * Dominator tree of a DAG (e.g. the condensation) for a fixed root.
+ * X dominates Y if every path from the root to Y passes through X,
+ * so the strict dominators of a vertex are its single points of failure.
+ *
+ * Uses the Cooper–Harvey–Kennedy intersection scheme. On a DAG one pass in
+ * topological order is enough, because all predecessors of a vertex are final
+ * before the vertex itself is reached. Each edge costs one nearest-common-dominator
+ * query, answered in O(log depth) by binary lifting over the idom links of the
+ * vertices already finalized. Dominance queries are O(1) via DFS entry/exit
+ * times on the tree.
+ */
+public final class DominatorTree {
+
+    private final int root;
+    private final int[] idom;
+    private final int[] tin;
+    private final int[] tout;
+
+    private DominatorTree(int root, int[] idom, int[] tin, int[] tout) {
+        this.root = root;
+        this.idom = idom;
+        this.tin = tin;
+        this.tout = tout;
+    }
+
+    /**
+     * Builds the dominator tree.
+     *
+     * @param root source vertex (or component ID)
+     * @param topo topological order of the DAG
+     * @param dag  DAG adjacency list
+     * @param m    metrics tracker (time only)
+     * @return dominator tree
+     */
+    public static DominatorTree build(int root,
+                                      List<Integer> topo,
+                                      List<List<Integer>> dag,
+                                      MetricsTracker m) {
+        int n = dag.size();
+        int[] idom = new int[n];
+        int[] depth = new int[n];
+        Arrays.fill(idom, -1);
+        Lifting up = new Lifting(n, root);
+
+        m.start();
+        boolean[] reached = new boolean[n];
+        reached[root] = true;
+        for (int v : topo) {
+            if (!reached[v]) continue; // unreachable from root
+            if (v != root) {
+                // idom[v] is final now: every predecessor of v came earlier in topo order
+                depth[v] = depth[idom[v]] + 1;
+                up.add(v, idom[v], depth[v]);
+            }
+            for (int w : dag.get(v)) {
+                if (!reached[w]) {
+                    reached[w] = true;
+                    idom[w] = v;
+                } else if (w != root) {
+                    idom[w] = up.lca(idom[w], v, depth);
+                }
+            }
+        }
+
+        // children lists (CSR) of the dominator tree, then iterative DFS for entry/exit times
+        int[] childStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            if (idom[v] != -1) childStart[idom[v] + 1]++;
+        }
+        for (int v = 0; v < n; v++) childStart[v + 1] += childStart[v];
+        int[] children = new int[childStart[n]];
+        int[] fill = Arrays.copyOf(childStart, n);
+        for (int v = 0; v < n; v++) {
+            if (idom[v] != -1) children[fill[idom[v]]++] = v;
+        }
+
+        int[] tin = new int[n];
+        int[] tout = new int[n];
+        Arrays.fill(tin, -1);
+        int[] stack = new int[n];
+        int[] next = Arrays.copyOf(childStart, n);
+        int sp = 0, clock = 0;
+        stack[sp++] = root;
+        tin[root] = clock++;
+        while (sp > 0) {
+            int v = stack[sp - 1];
+            if (next[v] < childStart[v + 1]) {
+                int c = children[next[v]++];
+                tin[c] = clock++;
+                stack[sp++] = c;
+            } else {
+                tout[v] = clock++;
+                sp--;
+            }
+        }
+        m.stop();
+        return new DominatorTree(root, idom, tin, tout);
+    }
+
+    /**
+     * Binary-lifting table over the finalized part of the dominator tree:
+     * up[k][v] is the 2^k-th dominator of v (the root above the top).
+     * Level k is only allocated once some vertex has depth >= 2^k, so a shallow
+     * tree costs few levels; every vertex finalized before that is shallower,
+     * so its entry is the root.
+     */
+    private static final class Lifting {
+        private final int n;
+        private final int root;
+        private final int[][] up = new int[32][];
+        private int levels = 1;
+
+        Lifting(int n, int root) {
+            this.n = n;
+            this.root = root;
+            up[0] = new int[n];
+            up[0][root] = root;
+        }
+
+        void add(int v, int parent, int depth) {
+            while (levels < 31 && depth >= (1 << levels)) {
+                up[levels] = new int[n];
+                Arrays.fill(up[levels], root);
+                levels++;
+            }
+            up[0][v] = parent;
+            for (int k = 1; k < levels; k++) {
+                up[k][v] = up[k - 1][up[k - 1][v]];
+            }
+        }
+
+        /** Nearest common dominator of two finalized vertices. */
+        int lca(int a, int b, int[] depth) {
+            if (depth[a] < depth[b]) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            int diff = depth[a] - depth[b];
+            for (int k = 0; diff != 0; k++, diff >>= 1) {
+                if ((diff & 1) != 0) a = up[k][a];
+            }
+            if (a == b) return a;
+            for (int k = levels - 1; k >= 0; k--) {
+                if (up[k][a] != up[k][b]) {
+                    a = up[k][a];
+                    b = up[k][b];
+                }
+            }
+            return up[0][a];
+        }
+    }
+
+    /** @return root of the tree */
+    public int root() {
+        return root;
+    }
+
+    /** @return immediate dominator of v, -1 for the root and unreachable vertices */
+    public int idom(int v) {
+        return idom[v];
+    }
+
+    /** @return copy of the immediate-dominator array */
+    public int[] idoms() {
+        return idom.clone();
+    }
+
+    /** @return true if v is reachable from the root */
+    public boolean reachable(int v) {
+        return tin[v] != -1;
+    }
+
+    /**
+     * @return true if x dominates y (every root → y path passes x); reflexive,
+     *         false when either vertex is unreachable
+     */
+    public boolean dominates(int x, int y) {
+        if (!reachable(x) || !reachable(y)) return false;
+        return tin[x] <= tin[y] && tout[y] <= tout[x];
+    }
+
+    /**
+     * @return vertices other than the root that strictly dominate at least one
+     *         other vertex, in increasing order (single points of failure)
+     */
+    public List<Integer> cutVertices() {
+        boolean[] cut = new boolean[idom.length];
+        for (int v = 0; v < idom.length; v++) {
+            if (idom[v] != -1 && idom[v] != root) cut[idom[v]] = true;
+        }
+        List<Integer> out = new ArrayList<>();
+        for (int v = 0; v < cut.length; v++) {
+            if (cut[v]) out.add(v);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,306 @@
+package graph.ooc;
+
+import graph.ooc.PartitionedEdgeStore.Side;
+import metrics.MetricsTracker;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Semi-external SCC over a {@link PartitionedEdgeStore}: per-vertex state
+ * lives in memory ({@link #BYTES_PER_VERTEX} bytes per vertex), edges stay on
+ * disk and are only streamed.
+ *
+ * Each round first trims vertices with no in- or out-edge inside their
+ * subproblem (each one is a singleton SCC), then runs forward-backward
+ * reachability from one pivot per subproblem. The pivot's SCC is
+ * forward ∩ backward; the rest splits into forward-only, backward-only and
+ * untouched subproblems, which no SCC can span.
+ *
+ * Both steps are worklists over partitions: after one full pass for the
+ * degrees, only partitions holding a vertex that changed (was trimmed, or
+ * newly reached) are read again. A partition that fits in the store's buffer
+ * is read once and then finished from memory: vertices of the partition that
+ * change while it is scanned go to a queue, whose edges are visited through
+ * the store's vertex index. A larger partition is streamed again until it has
+ * no change left; changes spread along the edge order within a scan, and
+ * successive scans alternate direction, so chains listed either way settle in
+ * a couple of scans. Trimming runs to a fixed point. A trimmed vertex applies
+ * each of its edges exactly once: through the queue, or, in a streamed
+ * partition, the edges its removal scan visits after the removal point in
+ * that scan and the rest in the next one.
+ */
+public final class ExternalSCC {
+
+    /**
+     * In-memory state per vertex: color, comp, indeg, outdeg, pivot/remap tables, two bitsets,
+     * per side the scan and edge position at which a trimmed vertex was removed, and the queue.
+     */
+    public static final int BYTES_PER_VERTEX = 64;
+
+    /** removedScan value of a vertex whose edges need no (more) applying. */
+    private static final int DONE = -1;
+    /** removedScan value of a vertex waiting in the queue of the partition being scanned. */
+    private static final int QUEUED = -2;
+    /**
+     * removedAt value of a vertex removed between scans: the next scan applies all its edges.
+     * Otherwise removedAt is the edge index of the removal, complemented (~) if that scan ran in reverse.
+     */
+    private static final long BETWEEN_SCANS = Long.MAX_VALUE;
+
+    private static final Side OUT = Side.OUT;
+    private static final Side IN = Side.IN;
+
+    /**
+     * Result: component id per vertex (0..compCount-1), partition scans and edge copies read from disk.
+     */
+    public record Result(int[] compOf, int compCount, long partitionScans, long edgesRead) {}
+
+    private final PartitionedEdgeStore store;
+    private final int n;
+    private final int parts;
+    private final int[] color;   // subproblem id of an active vertex
+    private final int[] comp;    // component id, -1 while the vertex is active
+    private final int[] indeg;
+    private final int[] outdeg;
+    private final BitSet fw;
+    private final BitSet bw;
+    private final int[][] removedScan;   // [side][v]: scan number of v's partition at removal
+    private final long[][] removedAt;    // [side][v]: edge position in that scan
+    private final int[][] scans;         // [side][p]: scans started
+    private final boolean[][] dirty;     // [side][p]: partition has edges left to apply
+
+    private int colors = 1;
+    private int compCount;
+    private long partitionScans;
+    private Side curSide;                // partition being scanned, or null
+    private int curPart = -1;
+    private boolean curReverse;
+    private boolean curIndexed;          // changes inside it go to the queue
+    private long pos;                    // index of the current edge in it
+    private final int[] queue;
+    private int queued;
+    private boolean draining;            // visiting the edges of a queued vertex
+
+    private ExternalSCC(PartitionedEdgeStore store) {
+        this.store = store;
+        this.n = store.vertexCount();
+        this.parts = store.partitions();
+        this.color = new int[n];
+        this.comp = new int[n];
+        this.indeg = new int[n];
+        this.outdeg = new int[n];
+        this.fw = new BitSet(n);
+        this.bw = new BitSet(n);
+        this.removedScan = new int[2][n];
+        this.removedAt = new long[2][n];
+        this.scans = new int[2][parts];
+        this.dirty = new boolean[2][parts];
+        this.queue = new int[n];
+        Arrays.fill(comp, -1);
+    }
+
+    /**
+     * Computes SCCs of the stored graph.
+     *
+     * @param store finished edge store
+     * @param m     metrics tracker (time only)
+     * @return component assignment
+     */
+    public static Result run(PartitionedEdgeStore store, MetricsTracker m) throws IOException {
+        ExternalSCC scc = new ExternalSCC(store);
+        long read0 = store.edgesRead();
+        m.start();
+        while (scc.trim()) {
+            scc.forwardBackward();
+        }
+        m.stop();
+        return new Result(scc.comp, scc.compCount, scc.partitionScans, store.edgesRead() - read0);
+    }
+
+    /** Removes singleton SCCs until none is left; returns false once every vertex has a component. */
+    private boolean trim() throws IOException {
+        if (!hasActive()) return false;
+
+        // degrees inside the subproblems, one full pass
+        Arrays.fill(indeg, 0);
+        Arrays.fill(outdeg, 0);
+        for (int p = 0; p < parts; p++) {
+            scan(OUT, p, (u, v, w) -> {
+                if (u != v && comp[u] < 0 && comp[v] < 0 && color[u] == color[v]) {
+                    outdeg[u]++;
+                    indeg[v]++;
+                }
+            });
+        }
+        for (int[] side : removedScan) Arrays.fill(side, DONE);
+        for (boolean[] side : dirty) Arrays.fill(side, false);
+        for (int v = 0; v < n; v++) {
+            if (comp[v] < 0 && (indeg[v] == 0 || outdeg[v] == 0)) remove(v);
+        }
+
+        // a removed vertex lowers the in-degree of its successors and the out-degree of its predecessors
+        PartitionedEdgeStore.EdgeVisitor outEdges = (u, v, w) -> {
+            if (u != v && pending(OUT, u) && comp[v] < 0 && color[v] == color[u] && --indeg[v] == 0) remove(v);
+        };
+        PartitionedEdgeStore.EdgeVisitor inEdges = (u, v, w) -> {
+            if (u != v && pending(IN, v) && comp[u] < 0 && color[u] == color[v] && --outdeg[u] == 0) remove(u);
+        };
+        while (anyDirty(OUT) || anyDirty(IN)) {
+            for (int p = 0; p < parts; p++) {
+                while (dirty[OUT.ordinal()][p]) scan(OUT, p, outEdges);
+                while (dirty[IN.ordinal()][p]) scan(IN, p, inEdges);
+            }
+        }
+        return hasActive();
+    }
+
+    /** Gives v its own component and queues its out- and in-edges. */
+    private void remove(int v) {
+        comp[v] = compCount++;
+        int p = store.partitionOf(v);
+        for (Side side : Side.values()) {
+            int s = side.ordinal();
+            if (side == curSide && p == curPart && curIndexed) {
+                removedScan[s][v] = QUEUED;
+                queue[queued++] = v;
+                continue;
+            }
+            removedScan[s][v] = scans[s][p];
+            removedAt[s][v] = (side != curSide || p != curPart) ? BETWEEN_SCANS : curReverse ? ~pos : pos;
+            dirty[s][p] = true;
+        }
+    }
+
+    /** Queues a newly reached vertex, or marks its partition for another scan. */
+    private void reached(Side side, int v) {
+        int p = store.partitionOf(v);
+        if (side == curSide && p == curPart && curIndexed) {
+            queue[queued++] = v;
+        } else {
+            dirty[side.ordinal()][p] = true;
+        }
+    }
+
+    /** True if the current edge of the scanned partition is one of v's edges still to apply. */
+    private boolean pending(Side side, int v) {
+        if (draining) return true;
+        int s = side.ordinal();
+        int scan = scans[s][curPart];
+        long at = removedAt[s][v];
+        if (removedScan[s][v] == scan) {
+            return (at >= 0) ? pos > at : pos < ~at;     // visited after the removal
+        }
+        if (removedScan[s][v] == scan - 1) {
+            return (at >= 0) ? pos <= at : pos >= ~at;   // skipped by the removal scan
+        }
+        return false;
+    }
+
+    private boolean hasActive() {
+        for (int v = 0; v < n; v++) {
+            if (comp[v] < 0) return true;
+        }
+        return false;
+    }
+
+    private boolean anyDirty(Side side) {
+        for (boolean d : dirty[side.ordinal()]) {
+            if (d) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads one partition, every other time in reverse; pos is the edge's index in the partition.
+     * If the partition is indexed, the queue is drained before returning, which leaves nothing to rescan.
+     */
+    private void scan(Side side, int p, PartitionedEdgeStore.EdgeVisitor visitor) throws IOException {
+        int s = side.ordinal();
+        dirty[s][p] = false;
+        scans[s][p]++;
+        partitionScans++;
+        curSide = side;
+        curPart = p;
+        curIndexed = store.indexable(side, p);
+        curReverse = scans[s][p] % 2 == 0;
+        pos = curReverse ? store.edgeCount(side, p) : -1;
+        int step = curReverse ? -1 : 1;
+        store.forEachEdge(side, p, curReverse, (u, v, w) -> {
+            pos += step;
+            visitor.edge(u, v, w);
+        });
+        draining = true;
+        for (int i = 0; i < queued; i++) {
+            int v = queue[i];
+            store.forEachEdgeOf(side, p, v, visitor);
+            removedScan[s][v] = DONE;
+        }
+        draining = false;
+        queued = 0;
+        curSide = null;
+        curPart = -1;
+    }
+
+    /** Scans the dirty partitions of one side until none is left. */
+    private void propagate(Side side, PartitionedEdgeStore.EdgeVisitor visitor) throws IOException {
+        while (anyDirty(side)) {
+            for (int p = 0; p < parts; p++) {
+                while (dirty[side.ordinal()][p]) scan(side, p, visitor);
+            }
+        }
+    }
+
+    /** One forward-backward round with one pivot per subproblem. */
+    private void forwardBackward() throws IOException {
+        int[] pivot = new int[colors];
+        Arrays.fill(pivot, -1);
+        for (int v = 0; v < n; v++) {
+            if (comp[v] < 0 && pivot[color[v]] == -1) {
+                pivot[color[v]] = v;
+                fw.set(v);
+                bw.set(v);
+                dirty[OUT.ordinal()][store.partitionOf(v)] = true;
+                dirty[IN.ordinal()][store.partitionOf(v)] = true;
+            }
+        }
+
+        // forward over out-edges, backward over in-edges; a newly reached vertex queues its partition
+        propagate(OUT, (u, v, w) -> {
+            if (fw.get(u) && !fw.get(v) && comp[v] < 0 && color[u] == color[v]) {
+                fw.set(v);
+                reached(OUT, v);
+            }
+        });
+        propagate(IN, (u, v, w) -> {
+            if (bw.get(v) && !bw.get(u) && comp[u] < 0 && color[u] == color[v]) {
+                bw.set(u);
+                reached(IN, u);
+            }
+        });
+
+        // pivot SCC gets a component, the rest is split into 3 subproblems per color
+        int[] pivotComp = pivot; // reused: pivot vertex no longer needed
+        Arrays.fill(pivotComp, -1);
+        int[] remap = new int[3 * colors];
+        Arrays.fill(remap, -1);
+        int next = 0;
+        for (int v = 0; v < n; v++) {
+            if (comp[v] >= 0) continue;
+            int c = color[v];
+            boolean f = fw.get(v), b = bw.get(v);
+            if (f && b) {
+                if (pivotComp[c] == -1) pivotComp[c] = compCount++;
+                comp[v] = pivotComp[c];
+            } else {
+                int key = 3 * c + (f ? 0 : b ? 1 : 2);
+                if (remap[key] == -1) remap[key] = next++;
+                color[v] = remap[key];
+            }
+        }
+        colors = Math.max(next, 1);
+        fw.clear();
+        bw.clear();
+    }
+}
@@ -0,0 +1,207 @@
+package graph.ooc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import graph.dagsp.DAGLongestPath;
+import graph.dagsp.DAGShortestPath;
+import graph.topo.KahnTopologicalSort;
+import metrics.MetricsTracker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * SCC → condensation → topo → DAG-SP for edge lists that do not fit in RAM
+ * as adjacency lists.
+ *
+ * The dataset JSON is streamed (never parsed into a tree) and its edges are
+ * spilled in chunks to a {@link PartitionedEdgeStore}. SCCs come from
+ * {@link ExternalSCC}, which keeps only O(n) state in memory. The condensation
+ * is built with one more edge pass and handed to the regular in-memory
+ * {@link KahnTopologicalSort} and DAG path stages.
+ *
+ * RAM and temp-disk use are checked against explicit limits; exceeding either
+ * throws IllegalStateException. The JSON must list {@code n} before {@code edges}.
+ */
+public final class OutOfCorePipeline {
+
+    /** Rough per-edge cost of the condensation (map entry, int[] and list slots). */
+    public static final int CONDENSED_EDGE_BYTES = 96;
+
+    private OutOfCorePipeline() {}
+
+    /**
+     * Resource limits.
+     *
+     * @param ramBytes   budget for vertex state, buffers and the condensation
+     * @param diskBytes  budget for partition files
+     * @param chunkEdges edges held in memory per chunk
+     * @param partitions number of vertex-range partitions on disk (per side)
+     */
+    public record Limits(long ramBytes, long diskBytes, int chunkEdges, int partitions) {
+
+        /** Limits from -Dooc.ram.bytes, -Dooc.disk.bytes, -Dooc.chunk.edges, -Dooc.partitions. */
+        public static Limits fromSystemProperties() {
+            return new Limits(
+                    Long.getLong("ooc.ram.bytes", 512L << 20),
+                    Long.getLong("ooc.disk.bytes", 8L << 30),
+                    Integer.getInteger("ooc.chunk.edges", 1 << 20),
+                    Integer.getInteger("ooc.partitions", 16));
+        }
+    }
+
+    /** Pipeline output; component-indexed arrays refer to the condensation. */
+    public record Result(int n,
+                         long edges,
+                         int[] compOf,
+                         int compCount,
+                         List<Integer> topo,
+                         int sourceComp,
+                         int[] dist,
+                         DAGLongestPath.LongestResult longest,
+                         long partitionScans,
+                         long edgesRead,
+                         long diskBytes,
+                         long ramBytes) {}
+
+    /**
+     * Runs the whole pipeline on one dataset file.
+     *
+     * @param json    dataset in the usual {n, edges:[{u,v,w}], source} format
+     * @param tempDir directory for partition files
+     * @param limits  RAM / disk limits
+     * @param source  source vertex, or -1 to use the dataset's {@code source} (default 0)
+     * @param sccM    metrics tracker for the SCC stage
+     * @return result
+     */
+    public static Result run(Path json, Path tempDir, Limits limits, int source, MetricsTracker sccM)
+            throws IOException {
+        try (JsonParser p = new JsonFactory().createParser(json.toFile())) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException(json + ": expected a JSON object");
+            }
+            int n = -1;
+            int fileSource = 0;
+            PartitionedEdgeStore store = null;
+            try {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    p.nextToken();
+                    if (field.equals("n")) {
+                        n = p.getIntValue();
+                    } else if (field.equals("source") && p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                        fileSource = p.getIntValue();
+                    } else if (field.equals("edges")) {
+                        if (n <= 0) {
+                            throw new IllegalArgumentException(json + ": `n` must precede `edges` for streaming");
+                        }
+                        checkRam(vertexBytes(n, limits), limits, "vertex state and buffers");
+                        store = new PartitionedEdgeStore(tempDir, n, limits.partitions(),
+                                limits.chunkEdges(), limits.diskBytes());
+                        readEdges(p, n, store);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                if (store == null) {
+                    throw new IllegalArgumentException(json + ": missing `n` or `edges`");
+                }
+                store.finish();
+                return runStore(store, (source >= 0) ? source : fileSource, limits, sccM);
+            } finally {
+                if (store != null) store.close();
+            }
+        }
+    }
+
+    /** Reads the edges array; malformed and out-of-range edges are skipped like in Main. */
+    private static void readEdges(JsonParser p, int n, PartitionedEdgeStore store) throws IOException {
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            int u = -1, v = -1, w = 1;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                JsonToken t = p.nextToken();
+                boolean isInt = t == JsonToken.VALUE_NUMBER_INT;
+                switch (f) {
+                    case "u" -> u = isInt ? p.getIntValue() : -1;
+                    case "v" -> v = isInt ? p.getIntValue() : -1;
+                    case "w" -> w = isInt ? p.getIntValue() : 1;
+                    default -> p.skipChildren();
+                }
+            }
+            if (w == 0) w = 1;
+            if (u < 0 || u >= n || v < 0 || v >= n) continue;
+            store.add(u, v, w);
+        }
+    }
+
+    /**
+     * SCC, condensation and DAG stages over an already filled store.
+     *
+     * @throws IllegalArgumentException if source is not a vertex of the store
+     */
+    public static Result runStore(PartitionedEdgeStore store, int source, Limits limits, MetricsTracker sccM)
+            throws IOException {
+        int n = store.vertexCount();
+        if (source < 0 || source >= n) {
+            throw new IllegalArgumentException("source " + source + " is out of range [0, " + n + ")");
+        }
+        long ram = vertexBytes(n, limits);
+        checkRam(ram, limits, "vertex state and buffers");
+
+        ExternalSCC.Result scc = ExternalSCC.run(store, sccM);
+        int[] compOf = scc.compOf();
+        int compCount = scc.compCount();
+
+        // condensation, keeping the minimum weight per component pair (as CondensationBuilder)
+        Map<Long, Integer> best = new HashMap<>();
+        long base = ram + (long) compCount * CONDENSED_EDGE_BYTES;
+        store.forEachEdge((u, v, w) -> {
+            int a = compOf[u];
+            int b = compOf[v];
+            if (a == b) return; // skip internal SCC edges
+            long key = (((long) a) << 32) | (b & 0xffffffffL);
+            best.merge(key, w, Math::min);
+            if (base + best.size() * (long) CONDENSED_EDGE_BYTES > limits.ramBytes()) {
+                throw new IllegalStateException("condensation does not fit the RAM budget: "
+                        + best.size() + " edges over " + compCount + " components");
+            }
+        });
+        ram = base + best.size() * (long) CONDENSED_EDGE_BYTES;
+
+        List<List<Integer>> dag = new ArrayList<>(compCount);
+        List<List<int[]>> dagW = new ArrayList<>(compCount);
+        for (int i = 0; i < compCount; i++) {
+            dag.add(new ArrayList<>());
+            dagW.add(new ArrayList<>());
+        }
+        for (Map.Entry<Long, Integer> e : best.entrySet()) {
+            int a = (int) (e.getKey() >> 32);
+            int b = (int) (e.getKey() & 0xffffffffL);
+            dag.get(a).add(b);
+            dagW.get(a).add(new int[]{b, e.getValue()});
+        }
+
+        List<Integer> topo = KahnTopologicalSort.topo(dag, new MetricsTracker());
+        int srcComp = compOf[source];
+        int[] dist = DAGShortestPath.shortestFrom(srcComp, topo, dagW, new MetricsTracker());
+        DAGLongestPath.LongestResult longest = DAGLongestPath.longestFrom(srcComp, topo, dagW, new MetricsTracker());
+
+        return new Result(n, store.edgeCount(), compOf, compCount, topo, srcComp, dist, longest,
+                scc.partitionScans(), scc.edgesRead(), store.diskBytes(), ram);
+    }
+
+    private static long vertexBytes(int n, Limits limits) {
+        return (long) n * ExternalSCC.BYTES_PER_VERTEX
+                + PartitionedEdgeStore.bufferBytes(Math.min(limits.partitions(), n), limits.chunkEdges());
+    }
+
+    private static void checkRam(long bytes, Limits limits, String what) {
+        if (bytes > limits.ramBytes()) {
+            throw new IllegalStateException("RAM budget exceeded by " + what + ": need "
+                    + bytes + " bytes, budget " + limits.ramBytes());
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package graph.ooc;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Disk-resident edge list split into partitions by vertex range.
+ * Every edge is stored twice: once in the {@link Side#OUT} partition of its
+ * source and once in the {@link Side#IN} partition of its target, so the
+ * out- and in-edges of a vertex range can be read without touching the rest.
+ * Edges are buffered in a fixed-size in-memory chunk and appended to the
+ * partition files when the chunk is full; reads stream a partition back,
+ * from either end, through a buffer of the same size. A partition that fits in that buffer
+ * stays there, so reading it again right away costs no I/O, and is indexed by
+ * vertex (in the chunk array, which is free once the store is finished) so
+ * the edges of single vertices can be visited. Each edge takes
+ * 12 bytes per copy on disk (u, v, w as big-endian ints), and the total is
+ * capped by a disk budget.
+ *
+ * Temp files are deleted on {@link #close()}.
+ */
+public final class PartitionedEdgeStore implements AutoCloseable {
+
+    /** Bytes per edge copy on disk and in the chunk buffers. */
+    public static final int EDGE_BYTES = 12;
+    /** Write buffer per partition file. */
+    public static final int WRITE_BUFFER = 64 * 1024;
+
+    /** Which endpoint decides the partition of an edge. */
+    public enum Side { OUT, IN }
+
+    /** Callback for streamed edges. */
+    @FunctionalInterface
+    public interface EdgeVisitor {
+        void edge(int u, int v, int w);
+    }
+
+    private final Path dir;
+    private final int n;
+    private final int partitions;
+    private final int chunkEdges;
+    private final long diskBudgetBytes;
+
+    private final Path[][] files;            // [side][partition]
+    private DataOutputStream[][] out;
+    private final long[][] partEdges;        // edges per [side][partition]
+    private final int[] chunk;
+    private int chunkSize;
+    private long edgeCount;
+
+    private final ByteBuffer buf;
+    private Side cachedSide;                 // partition held in buf, or null
+    private int cachedPart = -1;
+    private int indexLo = -1;                // first vertex of the indexed cached partition, -1 if none
+    private long edgesRead;
+
+    /**
+     * @param tempDir         parent directory for the partition files
+     * @param n               number of vertices
+     * @param partitions      number of source-range partitions
+     * @param chunkEdges      edges buffered in memory before spilling to disk
+     * @param diskBudgetBytes maximum bytes of partition files
+     */
+    public PartitionedEdgeStore(Path tempDir, int n, int partitions, int chunkEdges, long diskBudgetBytes)
+            throws IOException {
+        if (n <= 0 || partitions <= 0 || chunkEdges <= 0) {
+            throw new IllegalArgumentException("n, partitions and chunkEdges must be positive");
+        }
+        this.n = n;
+        this.partitions = Math.min(partitions, n);
+        this.chunkEdges = chunkEdges;
+        this.diskBudgetBytes = diskBudgetBytes;
+        this.dir = Files.createTempDirectory(tempDir, "edges-");
+        this.files = new Path[2][this.partitions];
+        this.out = new DataOutputStream[2][this.partitions];
+        this.partEdges = new long[2][this.partitions];
+        for (Side side : Side.values()) {
+            for (int p = 0; p < this.partitions; p++) {
+                Path f = dir.resolve(side.name().toLowerCase() + "-" + p + ".bin");
+                files[side.ordinal()][p] = f;
+                out[side.ordinal()][p] =
+                        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(f), WRITE_BUFFER));
+            }
+        }
+        this.chunk = new int[3 * chunkEdges];
+        this.buf = ByteBuffer.allocate(chunkEdges * EDGE_BYTES);
+    }
+
+    /** Adds one edge; spills the chunk to disk when it is full. */
+    public void add(int u, int v, int w) throws IOException {
+        if (out == null) throw new IllegalStateException("store already finished");
+        if ((edgeCount + 1) * 2 * EDGE_BYTES > diskBudgetBytes) {
+            throw new IllegalStateException("temp disk budget exceeded: "
+                    + (edgeCount + 1) * 2 * EDGE_BYTES + " bytes, budget " + diskBudgetBytes);
+        }
+        int i = 3 * chunkSize++;
+        chunk[i] = u;
+        chunk[i + 1] = v;
+        chunk[i + 2] = w;
+        edgeCount++;
+        if (chunkSize == chunkEdges) spill();
+    }
+
+    /** Flushes the last chunk and closes the writers; the store becomes read-only. */
+    public void finish() throws IOException {
+        if (out == null) return;
+        spill();
+        closeWriters();
+    }
+
+    private void spill() throws IOException {
+        for (int i = 0; i < chunkSize; i++) {
+            int u = chunk[3 * i];
+            int v = chunk[3 * i + 1];
+            int w = chunk[3 * i + 2];
+            write(Side.OUT, partitionOf(u), u, v, w);
+            write(Side.IN, partitionOf(v), u, v, w);
+        }
+        chunkSize = 0;
+    }
+
+    private void write(Side side, int p, int u, int v, int w) throws IOException {
+        DataOutputStream o = out[side.ordinal()][p];
+        o.writeInt(u);
+        o.writeInt(v);
+        o.writeInt(w);
+        partEdges[side.ordinal()][p]++;
+    }
+
+    private void closeWriters() throws IOException {
+        for (DataOutputStream[] side : out) {
+            for (DataOutputStream o : side) o.close();
+        }
+        out = null;
+    }
+
+    /** @return partition holding the vertex range of v */
+    public int partitionOf(int v) {
+        return (int) ((long) v * partitions / n);
+    }
+
+    /**
+     * Streams every edge once, partition by partition (sources in increasing ranges).
+     */
+    public void forEachEdge(EdgeVisitor visitor) throws IOException {
+        for (int p = 0; p < partitions; p++) {
+            forEachEdge(Side.OUT, p, false, visitor);
+        }
+    }
+
+    /**
+     * Streams the edges of one partition, in the order they were added or in
+     * reverse. If the partition fits in the read buffer it is kept there, and
+     * the next read of the same partition is served from memory.
+     *
+     * @param side    OUT for the edges leaving the partition's vertices, IN for those entering them
+     * @param p       partition index
+     * @param reverse true to visit the last added edge first
+     * @param visitor receives (u, v, w) of every edge
+     */
+    public void forEachEdge(Side side, int p, boolean reverse, EdgeVisitor visitor) throws IOException {
+        if (out != null) throw new IllegalStateException("call finish() before reading");
+        long size = partEdges[side.ordinal()][p] * EDGE_BYTES;
+        if (cachedSide != side || cachedPart != p) {
+            cachedSide = null;
+            cachedPart = -1;
+            indexLo = -1;
+            try (FileChannel ch = FileChannel.open(files[side.ordinal()][p], StandardOpenOption.READ)) {
+                if (size > buf.capacity()) {
+                    stream(ch, size, reverse, visitor);
+                    return;
+                }
+                read(ch, 0, (int) size);
+            }
+            edgesRead += size / EDGE_BYTES;
+            cachedSide = side;
+            cachedPart = p;
+            if (indexable(side, p)) buildIndex(side, p, (int) (size / EDGE_BYTES));
+        }
+        visitBuffer((int) size, reverse, visitor);
+    }
+
+    /**
+     * @return true if reading the partition leaves it in the buffer with a
+     *         vertex index, so {@link #forEachEdgeOf} can be used right after
+     */
+    public boolean indexable(Side side, int p) {
+        long count = partEdges[side.ordinal()][p];
+        return count * EDGE_BYTES <= buf.capacity() && firstVertex(p + 1) - firstVertex(p) + 1 + count <= chunk.length;
+    }
+
+    /**
+     * Visits the edges of one vertex (leaving it for OUT, entering it for IN)
+     * in the partition just read; requires {@link #indexable}.
+     */
+    public void forEachEdgeOf(Side side, int p, int v, EdgeVisitor visitor) {
+        if (cachedSide != side || cachedPart != p || indexLo < 0) {
+            throw new IllegalStateException("partition " + side + " " + p + " is not the indexed one in the buffer");
+        }
+        int range = firstVertex(p + 1) - indexLo;
+        int from = chunk[v - indexLo];
+        int to = chunk[v - indexLo + 1];
+        for (int k = from; k < to; k++) {
+            int i = chunk[range + 1 + k] * EDGE_BYTES;
+            visitor.edge(buf.getInt(i), buf.getInt(i + 4), buf.getInt(i + 8));
+        }
+    }
+
+    /** Counting sort of the buffered edges by owner: chunk[0..range] offsets, then edge indices. */
+    private void buildIndex(Side side, int p, int count) {
+        int lo = firstVertex(p);
+        int range = firstVertex(p + 1) - lo;
+        int ownerAt = (side == Side.OUT) ? 0 : 4;
+        Arrays.fill(chunk, 0, range + 1, 0);
+        for (int i = 0; i < count; i++) chunk[buf.getInt(i * EDGE_BYTES + ownerAt) - lo + 1]++;
+        for (int o = 0; o < range; o++) chunk[o + 1] += chunk[o];
+        for (int i = 0; i < count; i++) {
+            int o = buf.getInt(i * EDGE_BYTES + ownerAt) - lo;
+            chunk[range + 1 + chunk[o]++] = i;
+        }
+        // chunk[o] now holds the end of owner o, which is the start of o + 1
+        System.arraycopy(chunk, 0, chunk, 1, range);
+        chunk[0] = 0;
+        indexLo = lo;
+    }
+
+    /** @return smallest vertex of partition p (n for p == partitions) */
+    private int firstVertex(int p) {
+        return (int) (((long) p * n + partitions - 1) / partitions);
+    }
+
+    /** Reads a partition larger than the buffer block by block, from either end. */
+    private void stream(FileChannel ch, long size, boolean reverse, EdgeVisitor visitor) throws IOException {
+        int block = buf.capacity();
+        for (long done = 0; done < size; done += block) {
+            int len = (int) Math.min(block, size - done);
+            read(ch, reverse ? size - done - len : done, len);
+            edgesRead += len / EDGE_BYTES;
+            visitBuffer(len, reverse, visitor);
+        }
+    }
+
+    /** Fills buf[0, len) from the file position. */
+    private void read(FileChannel ch, long position, int len) throws IOException {
+        buf.clear().limit(len);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, position + buf.position()) == -1) throw new EOFException("partition file is truncated");
+        }
+    }
+
+    private void visitBuffer(int len, boolean reverse, EdgeVisitor visitor) {
+        if (reverse) {
+            for (int i = len - EDGE_BYTES; i >= 0; i -= EDGE_BYTES) {
+                visitor.edge(buf.getInt(i), buf.getInt(i + 4), buf.getInt(i + 8));
+            }
+        } else {
+            for (int i = 0; i < len; i += EDGE_BYTES) {
+                visitor.edge(buf.getInt(i), buf.getInt(i + 4), buf.getInt(i + 8));
+            }
+        }
+    }
+
+    /** @return number of vertices */
+    public int vertexCount() {
+        return n;
+    }
+
+    /** @return number of edges in one partition */
+    public long edgeCount(Side side, int p) {
+        return partEdges[side.ordinal()][p];
+    }
+
+    /** @return number of vertex-range partitions per side */
+    public int partitions() {
+        return partitions;
+    }
+
+    /** @return edge copies read from disk so far (reads served from the buffer are not counted) */
+    public long edgesRead() {
+        return edgesRead;
+    }
+
+    /** @return number of stored edges */
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /** @return bytes written to the partition files (both sides) */
+    public long diskBytes() {
+        return edgeCount * 2 * EDGE_BYTES;
+    }
+
+    /** @return in-memory bytes held by a store with these settings (chunk, read buffer, writers of both sides) */
+    public static long bufferBytes(int partitions, int chunkEdges) {
+        return 2L * chunkEdges * EDGE_BYTES + 2L * partitions * WRITE_BUFFER;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) closeWriters();
+        for (Path[] side : files) {
+            for (Path f : side) Files.deleteIfExists(f);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
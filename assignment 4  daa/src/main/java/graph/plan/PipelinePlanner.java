@@ -0,0 +1,278 @@
+package graph.plan;
+
+import graph.dagsp.DAGShortestPath;
+import graph.dagsp.ParallelDAGPaths;
+import graph.topo.KahnTopologicalSort;
+import graph.util.GraphWorkspace;
+import metrics.MetricsTracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chooses the stages of the SCC → condensation → topo → DAG-SP pipeline
+ * from a cheap pre-analysis of the input graph:
+ * <ul>
+ *   <li>profile: one pass over the edges for size, density, degree skew and
+ *       a bound on path weights;</li>
+ *   <li>Kahn probe: one topological sort of the original graph. If it orders
+ *       every vertex the graph is a DAG, so Tarjan and the condensation are
+ *       skipped and the probe order is reused as the topological order.</li>
+ * </ul>
+ * From these it decides the distance width (int or long) and the DP engine
+ * (sequential or level-parallel). For a cyclic graph the engine depends on the
+ * level widths of the condensation, so {@link #withCondensation} decides it once
+ * the condensation is built. Every decision is recorded with the time the
+ * analysis behind it took, so thresholds can be tuned from the metrics output.
+ */
+public final class PipelinePlanner {
+
+    /** Default minimum DAG size for the level-parallel DP (-Dplan.parallel.min.vertices). */
+    public static final int DEFAULT_PARALLEL_MIN_VERTICES = 100_000;
+
+    private PipelinePlanner() {}
+
+    /**
+     * One planning decision.
+     *
+     * @param stage  pipeline stage the decision is about
+     * @param choice chosen option
+     * @param reason measured values behind the choice
+     * @param costNs time spent on the analysis that produced it
+     */
+    public record Decision(String stage, String choice, String reason, long costNs) {}
+
+    /**
+     * Result of the pre-analysis.
+     *
+     * @param n             number of vertices
+     * @param edges         number of edges
+     * @param density       edges / (n * (n - 1))
+     * @param maxOutDegree  largest out-degree
+     * @param maxInDegree   largest in-degree
+     * @param degreeSkew    max(in, out) degree divided by the average degree
+     * @param acyclic       true if the Kahn probe ordered every vertex
+     * @param probeOrder    order produced by the probe (complete iff acyclic)
+     * @param probeMetrics  Kahn metrics of the probe
+     * @param levels        topological levels of the original graph (0 if cyclic)
+     * @param weightBound   sum of |w| over all edges, a bound on any path weight
+     * @param longDistances true if distances need 64 bits
+     * @param parallelDp    true if the level-parallel DP engine should be used (int distances only);
+     *                      always false for a cyclic graph until {@link #withCondensation} runs
+     * @param parallelMinVertices minimum DAG size for the level-parallel DP
+     * @param decisions     decisions in pipeline order
+     */
+    public record Plan(int n,
+                       long edges,
+                       double density,
+                       int maxOutDegree,
+                       int maxInDegree,
+                       double degreeSkew,
+                       boolean acyclic,
+                       List<Integer> probeOrder,
+                       MetricsTracker probeMetrics,
+                       int levels,
+                       long weightBound,
+                       boolean longDistances,
+                       boolean parallelDp,
+                       int parallelMinVertices,
+                       List<Decision> decisions) {
+
+        /** @return true if Tarjan and the condensation have to run */
+        public boolean needsCondensation() {
+            return !acyclic;
+        }
+
+        /** @return total time spent planning */
+        public long costNs() {
+            long sum = 0;
+            for (Decision d : decisions) sum += d.costNs();
+            return sum;
+        }
+
+        /** @return the decision for a stage, or null if there is none */
+        public Decision decision(String stage) {
+            for (Decision d : decisions) {
+                if (d.stage().equals(stage)) return d;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Plans with the parallel threshold from -Dplan.parallel.min.vertices.
+     *
+     * @param adj  adjacency list
+     * @param adjW weighted adjacency list of the same graph
+     * @param ws   scratch workspace
+     * @return plan
+     */
+    public static Plan plan(List<List<Integer>> adj, List<List<int[]>> adjW, GraphWorkspace ws) {
+        return plan(adj, adjW, ws,
+                Integer.getInteger("plan.parallel.min.vertices", DEFAULT_PARALLEL_MIN_VERTICES));
+    }
+
+    /**
+     * Profiles the graph and decides every stage.
+     *
+     * @param adj                 adjacency list
+     * @param adjW                weighted adjacency list of the same graph
+     * @param ws                  scratch workspace
+     * @param parallelMinVertices minimum DAG size for the level-parallel DP
+     * @return plan
+     */
+    public static Plan plan(List<List<Integer>> adj,
+                            List<List<int[]>> adjW,
+                            GraphWorkspace ws,
+                            int parallelMinVertices) {
+        int n = adj.size();
+        List<Decision> decisions = new ArrayList<>();
+
+        // 1) profile: degrees and weight bound in one edge pass
+        long t0 = System.nanoTime();
+        ws.beginStage();
+        int[] indeg = ws.zeroedInts("plan.indeg", n);
+        long edges = 0;
+        long weightBound = 0;
+        int maxOut = 0;
+        for (int v = 0; v < n; v++) {
+            List<int[]> out = adjW.get(v);
+            maxOut = Math.max(maxOut, out.size());
+            edges += out.size();
+            for (int[] e : out) {
+                indeg[e[0]]++;
+                weightBound += Math.abs((long) e[1]);
+            }
+        }
+        int maxIn = 0;
+        for (int v = 0; v < n; v++) maxIn = Math.max(maxIn, indeg[v]);
+        double avgDeg = (n == 0) ? 0 : (double) edges / n;
+        double skew = (avgDeg == 0) ? 0 : Math.max(maxIn, maxOut) / avgDeg;
+        double density = (n < 2) ? 0 : (double) edges / ((double) n * (n - 1));
+        long profileNs = System.nanoTime() - t0;
+        decisions.add(new Decision("profile", "n=" + n + ",m=" + edges,
+                String.format(Locale.ROOT, "density=%.6f,maxOut=%d,maxIn=%d,skew=%.2f", density, maxOut, maxIn, skew),
+                profileNs));
+
+        // 2) Kahn probe on the original graph, plus its level count if it is a DAG
+        t0 = System.nanoTime();
+        MetricsTracker probeM = new MetricsTracker();
+        List<Integer> order = KahnTopologicalSort.topo(adj, probeM, ws);
+        boolean acyclic = order.size() == n;
+        int levels = 0;
+        if (acyclic && n > 0) {
+            int[] level = ws.zeroedInts("plan.level", n);
+            for (int v : order) {
+                for (int to : adj.get(v)) {
+                    if (level[v] + 1 > level[to]) level[to] = level[v] + 1;
+                }
+                levels = Math.max(levels, level[v] + 1);
+            }
+        }
+        long probeNs = System.nanoTime() - t0;
+        decisions.add(new Decision("cycle-probe", acyclic ? "dag" : "cyclic",
+                "kahn ordered " + order.size() + " of " + n, probeNs));
+        decisions.add(new Decision("scc", acyclic ? "skip" : "tarjan",
+                acyclic ? "every vertex is its own SCC" : "cycles present; no shared-memory parallel SCC engine",
+                0));
+        decisions.add(new Decision("condensation", acyclic ? "skip" : "build",
+                acyclic ? "original graph is the DAG; probe order reused" : "needed to remove cycles", 0));
+
+        // 3) distance width: int DP is exact while every path stays below INF
+        boolean wide = weightBound >= DAGShortestPath.INF;
+        decisions.add(new Decision("dist-width", wide ? "long" : "int",
+                "weightBound=" + weightBound + (wide ? " >= " : " < ") + DAGShortestPath.INF, 0));
+
+        // 4) DP engine; for a cyclic graph the condensation levels are not known yet
+        Decision engine = dpEngine(wide, n, acyclic ? levels : -1, parallelMinVertices, 0);
+        decisions.add(engine);
+
+        return new Plan(n, edges, density, maxOut, maxIn, skew, acyclic, order, probeM, levels,
+                weightBound, wide, isParallel(engine), parallelMinVertices, Collections.unmodifiableList(decisions));
+    }
+
+    /**
+     * Decides the DP engine of a cyclic graph from the levels of its condensation.
+     * Plans of DAGs are returned unchanged.
+     *
+     * @param plan plan of the original graph
+     * @param topo topological order of the condensation
+     * @param dagW weighted condensation
+     * @param ws   scratch workspace
+     * @return plan with the dp-engine decision replaced
+     */
+    public static Plan withCondensation(Plan plan,
+                                        List<Integer> topo,
+                                        List<List<int[]>> dagW,
+                                        GraphWorkspace ws) {
+        if (plan.acyclic()) return plan;
+
+        long t0 = System.nanoTime();
+        int k = dagW.size();
+        int levels = 0;
+        if (k > 0) {
+            int[] level = ws.zeroedInts("plan.level", k);
+            for (int c : topo) {
+                for (int[] e : dagW.get(c)) {
+                    if (level[c] + 1 > level[e[0]]) level[e[0]] = level[c] + 1;
+                }
+                levels = Math.max(levels, level[c] + 1);
+            }
+        }
+        Decision engine = dpEngine(plan.longDistances(), k, levels, plan.parallelMinVertices(),
+                System.nanoTime() - t0);
+
+        List<Decision> decisions = new ArrayList<>(plan.decisions());
+        for (int i = 0; i < decisions.size(); i++) {
+            if (decisions.get(i).stage().equals(engine.stage())) decisions.set(i, engine);
+        }
+        return new Plan(plan.n(), plan.edges(), plan.density(), plan.maxOutDegree(), plan.maxInDegree(),
+                plan.degreeSkew(), false, plan.probeOrder(), plan.probeMetrics(), plan.levels(),
+                plan.weightBound(), plan.longDistances(), isParallel(engine), plan.parallelMinVertices(),
+                Collections.unmodifiableList(decisions));
+    }
+
+    /**
+     * DP engine for a DAG: wide levels pay for the reverse CSR and the fork/join.
+     *
+     * @param levels level count of the DAG, or -1 if it is not built yet
+     */
+    private static Decision dpEngine(boolean wide, int vertices, int levels, int parallelMinVertices, long costNs) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        boolean parallel = false;
+        String why;
+        if (wide) {
+            why = "long distances; the level-parallel engine is int only";
+        } else if (cores < 2) {
+            why = "1 core";
+        } else if (vertices < parallelMinVertices) {
+            why = "n=" + vertices + " < " + parallelMinVertices;
+        } else if (levels < 0) {
+            why = "cyclic; decided on the condensation";
+        } else {
+            long width = vertices / Math.max(levels, 1);
+            parallel = width >= ParallelDAGPaths.PARALLEL_THRESHOLD;
+            why = "n=" + vertices + ",levels=" + levels + ",avgWidth=" + width
+                    + ",threshold=" + ParallelDAGPaths.PARALLEL_THRESHOLD;
+        }
+        return new Decision("dp-engine", parallel ? "parallel-levels" : "sequential", why, costNs);
+    }
+
+    private static boolean isParallel(Decision engine) {
+        return engine.choice().equals("parallel-levels");
+    }
+
+    /**
+     * Components of a DAG: vertex v is component v.
+     *
+     * @param n number of vertices
+     * @return n singleton components
+     */
+    public static List<List<Integer>> singletonComponents(int n) {
+        List<List<Integer>> comps = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) comps.add(List.of(v));
+        return comps;
+    }
+}
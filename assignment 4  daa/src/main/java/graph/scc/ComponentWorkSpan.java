@@ -0,0 +1,207 @@
+package graph.scc;
+
+import metrics.MetricsTracker;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Node weights of the condensation: total work and internal span of every SCC.
+ *
+ * Each vertex is a task with a work value. The work of a component is the sum
+ * of its tasks. Its span is the heaviest cycle-free (simple) path inside the
+ * component, counting the work of every task on it:
+ * <ul>
+ *   <li>components of at most {@link #EXACT_LIMIT} vertices are solved exactly
+ *       with a DP over vertex subsets;</li>
+ *   <li>larger ones drop the back edges of a DFS (which leaves the tree, forward
+ *       and cross edges, a DAG) and take the heaviest path of that DAG. Every such
+ *       path is simple in the component, so the result is a lower bound.</li>
+ * </ul>
+ * Components are independent and are processed in parallel.
+ */
+public final class ComponentWorkSpan {
+
+    /** Largest component whose span is computed exactly (2^k · k DP states). */
+    public static final int EXACT_LIMIT = 12;
+
+    private ComponentWorkSpan() {}
+
+    /**
+     * Per-component weights, indexed by component id.
+     *
+     * @param work  total work of the component
+     * @param span  heaviest simple path inside the component
+     * @param exact false where span is only a lower bound
+     */
+    public record Result(long[] work, long[] span, boolean[] exact) {
+
+        /** @return work of all components */
+        public long totalWork() {
+            long sum = 0;
+            for (long w : work) sum += w;
+            return sum;
+        }
+
+        /** @return true if every span is exact */
+        public boolean allExact() {
+            for (boolean e : exact) {
+                if (!e) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @param n number of vertices
+     * @return work array with one unit per vertex (the default when a dataset has none)
+     */
+    public static int[] unitWork(int n) {
+        int[] work = new int[n];
+        Arrays.fill(work, 1);
+        return work;
+    }
+
+    /**
+     * Computes work and span of every component.
+     *
+     * @param adj        original directed graph
+     * @param comps      SCCs as lists of vertices
+     * @param vertexWork non-negative work per vertex
+     * @param m          metrics tracker (time only)
+     * @return per-component weights
+     */
+    public static Result compute(List<List<Integer>> adj,
+                                 List<List<Integer>> comps,
+                                 int[] vertexWork,
+                                 MetricsTracker m) {
+        int n = adj.size();
+        if (vertexWork.length != n) {
+            throw new IllegalArgumentException("work has " + vertexWork.length + " entries for " + n + " vertices");
+        }
+        for (int w : vertexWork) {
+            if (w < 0) throw new IllegalArgumentException("negative work: " + w);
+        }
+
+        int k = comps.size();
+        long[] work = new long[k];
+        long[] span = new long[k];
+        boolean[] exact = new boolean[k];
+        // components own disjoint vertices, so they can share these arrays
+        int[] compOf = new int[n];
+        int[] local = new int[n];
+        for (int c = 0; c < k; c++) {
+            List<Integer> vs = comps.get(c);
+            for (int i = 0; i < vs.size(); i++) {
+                compOf[vs.get(i)] = c;
+                local[vs.get(i)] = i;
+            }
+        }
+
+        m.start();
+        IntStream.range(0, k).parallel().forEach(c -> {
+            List<Integer> vs = comps.get(c);
+            long total = 0;
+            for (int v : vs) total += vertexWork[v];
+            work[c] = total;
+            if (vs.size() == 1) {
+                span[c] = vertexWork[vs.get(0)];
+                exact[c] = true;
+            } else if (vs.size() <= EXACT_LIMIT) {
+                span[c] = exactSpan(vs, adj, compOf, local, c, vertexWork);
+                exact[c] = true;
+            } else {
+                span[c] = dfsDagSpan(vs, adj, compOf, local, c, vertexWork);
+            }
+        });
+        m.stop();
+        return new Result(work, span, exact);
+    }
+
+    /** best[mask][i]: heaviest simple path over exactly the vertices in mask, ending at local vertex i. */
+    private static long exactSpan(List<Integer> vs,
+                                  List<List<Integer>> adj,
+                                  int[] compOf,
+                                  int[] local,
+                                  int c,
+                                  int[] vertexWork) {
+        int s = vs.size();
+        int[] out = new int[s];
+        for (int i = 0; i < s; i++) {
+            for (int to : adj.get(vs.get(i))) {
+                if (compOf[to] == c) out[i] |= 1 << local[to];
+            }
+        }
+        long[] best = new long[(1 << s) * s];
+        Arrays.fill(best, -1);
+        long result = 0;
+        for (int i = 0; i < s; i++) best[(1 << i) * s + i] = vertexWork[vs.get(i)];
+        for (int mask = 1; mask < (1 << s); mask++) {
+            for (int i = 0; i < s; i++) {
+                long cur = best[mask * s + i];
+                if (cur < 0) continue;
+                result = Math.max(result, cur);
+                int next = out[i] & ~mask;
+                while (next != 0) {
+                    int j = Integer.numberOfTrailingZeros(next);
+                    next &= next - 1;
+                    int idx = (mask | (1 << j)) * s + j;
+                    long cand = cur + vertexWork[vs.get(j)];
+                    if (cand > best[idx]) best[idx] = cand;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Heaviest path of the DFS DAG (tree, forward and cross edges) of one component,
+     * computed in post-order: every non-back edge leads to an already finished vertex.
+     */
+    private static long dfsDagSpan(List<Integer> vs,
+                                   List<List<Integer>> adj,
+                                   int[] compOf,
+                                   int[] local,
+                                   int c,
+                                   int[] vertexWork) {
+        int s = vs.size();
+        byte[] state = new byte[s];         // 0 = new, 1 = on stack, 2 = finished
+        long[] down = new long[s];          // heaviest DAG path starting at the vertex
+        int[] stack = new int[s];
+        int[] edge = new int[s];
+        long result = 0;
+
+        for (int root = 0; root < s; root++) {
+            if (state[root] != 0) continue;
+            int top = 0;
+            stack[0] = root;
+            edge[0] = 0;
+            state[root] = 1;
+            while (top >= 0) {
+                int i = stack[top];
+                List<Integer> outs = adj.get(vs.get(i));
+                if (edge[top] < outs.size()) {
+                    int to = outs.get(edge[top]++);
+                    if (compOf[to] == c && state[local[to]] == 0) {
+                        int j = local[to];
+                        state[j] = 1;
+                        stack[++top] = j;
+                        edge[top] = 0;
+                    }
+                    continue;
+                }
+                long best = 0;
+                for (int to : outs) {
+                    if (compOf[to] == c && state[local[to]] == 2) {
+                        best = Math.max(best, down[local[to]]);
+                    }
+                }
+                down[i] = vertexWork[vs.get(i)] + best;
+                result = Math.max(result, down[i]);
+                state[i] = 2;
+                top--;
+            }
+        }
+        return result;
+    }
+}
@@ -1,5 +1,8 @@
 package graph.scc;
 
+import graph.util.GraphWorkspace;
+import metrics.MetricsTracker;
+
 import java.util.*;
 
 /**
@@ -20,11 +23,24 @@ public final class CondensationBuilder {
      */
     public static List<List<Integer>> buildCondensation(List<List<Integer>> adj,
                                                         List<List<Integer>> comps) {
+        return buildCondensation(adj, comps, new GraphWorkspace(), new MetricsTracker());
+    }
+
+    /**
+     * Same as above, with the vertex → component array taken from a shared
+     * workspace; its size is recorded as the stage's peak bytes.
+     */
+    public static List<List<Integer>> buildCondensation(List<List<Integer>> adj,
+                                                        List<List<Integer>> comps,
+                                                        GraphWorkspace ws,
+                                                        MetricsTracker m) {
         int n = adj.size();
         int compCount = comps.size();
 
-        // vertex -> component id
-        int[] compOf = new int[n];
+        // vertex -> component id (every vertex belongs to a component, so no clearing needed)
+        ws.beginStage();
+        int[] compOf = ws.ints("cond.compOf", n);
+        m.recordBytes(ws.stageBytes());
         for (int cid = 0; cid < compCount; cid++) {
             for (int v : comps.get(cid)) {
                 compOf[v] = cid;
@@ -65,10 +81,23 @@ public final class CondensationBuilder {
     public static List<List<int[]>> buildWeightedCondensation(List<List<Integer>> adj,
                                                               List<List<int[]>> adjW,
                                                               List<List<Integer>> comps) {
+        return buildWeightedCondensation(adj, adjW, comps, new GraphWorkspace(), new MetricsTracker());
+    }
+
+    /**
+     * Same as above, reusing the vertex → component array of the workspace.
+     */
+    public static List<List<int[]>> buildWeightedCondensation(List<List<Integer>> adj,
+                                                              List<List<int[]>> adjW,
+                                                              List<List<Integer>> comps,
+                                                              GraphWorkspace ws,
+                                                              MetricsTracker m) {
         int n = adj.size();
         int compCount = comps.size();
 
-        int[] compOf = new int[n];
+        ws.beginStage();
+        int[] compOf = ws.ints("cond.compOf", n);
+        m.recordBytes(ws.stageBytes());
         for (int cid = 0; cid < compCount; cid++) {
             for (int v : comps.get(cid)) {
                 compOf[v] = cid;
@@ -104,4 +133,44 @@ public final class CondensationBuilder {
         }
         return dagW;
     }
-}
\ No newline at end of file
+
+    /**
+     * Weighted condensation of a DAG, where every vertex is its own SCC:
+     * the original edges with parallel edges collapsed to the minimum weight,
+     * as {@link #buildWeightedCondensation} keeps them. Edge order is preserved
+     * and no hash map is needed, since a DAG has no internal edges to skip.
+     *
+     * @param adjW weighted adjacency list of a DAG
+     * @param ws   workspace for the per-target edge slots
+     * @param m    metrics tracker (bytes)
+     * @return weighted DAG with at most one edge per vertex pair
+     */
+    public static List<List<int[]>> collapseParallelEdges(List<List<int[]>> adjW,
+                                                          GraphWorkspace ws,
+                                                          MetricsTracker m) {
+        int n = adjW.size();
+
+        ws.beginStage();
+        int[] owner = ws.ints("cond.owner", n); // last vertex with an edge to the target
+        int[] slot = ws.ints("cond.slot", n);   // index of that edge in the owner's list
+        m.recordBytes(ws.stageBytes());
+        Arrays.fill(owner, 0, n, -1);
+
+        List<List<int[]>> dagW = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            List<int[]> out = new ArrayList<>(adjW.get(v).size());
+            for (int[] e : adjW.get(v)) {
+                int to = e[0];
+                if (owner[to] != v) {
+                    owner[to] = v;
+                    slot[to] = out.size();
+                    out.add(e);
+                } else if (e[1] < out.get(slot[to])[1]) {
+                    out.set(slot[to], new int[]{to, e[1]}); // never write into the input edges
+                }
+            }
+            dagW.add(out);
+        }
+        return dagW;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package graph.scc;
+
+import graph.util.SCCUtils;
+import metrics.MetricsTracker;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Extracts a shortest dependency cycle for every non-trivial SCC
+ * (more than one vertex, or a single vertex with a self-loop).
+ *
+ * For each component a BFS restricted to the component is run from its
+ * vertices; the first edge back to the start closes the shortest cycle
+ * through that start. The minimum over all starts is the shortest cycle
+ * of the component. Components are processed in parallel, and all of them
+ * share one time budget: once it runs out, every component keeps the best
+ * cycle found so far and is reported as not exact. The budget is also checked
+ * inside each BFS, except the first one of a component, which has to finish
+ * so that every component reports some cycle.
+ */
+public final class CycleDiagnostics {
+
+    /** Dequeues between two deadline checks inside a BFS (power of two minus one). */
+    private static final int DEADLINE_CHECK_MASK = 255;
+
+    /** Returned by {@link #cycleThrough} when the deadline interrupts the BFS. */
+    private static final List<Integer> TIMED_OUT = List.of();
+
+    private CycleDiagnostics() {}
+
+    /**
+     * One cycle per component.
+     *
+     * @param component component id (index in the SCC list)
+     * @param cycle     vertices v0 → v1 → ... → v(k-1) → v0, in original IDs
+     * @param exact     true if the cycle is proven shortest within the component
+     */
+    public record ComponentCycle(int component, List<Integer> cycle, boolean exact) {
+        public int length() {
+            return cycle.size();
+        }
+    }
+
+    /**
+     * @param adj          original directed graph
+     * @param comps        SCCs as returned by {@link TarjanSCC#run()}
+     * @param timeBudgetMs total time budget for all components
+     * @param m            metrics tracker (time only)
+     * @return cycles of all non-trivial components, ordered by component id
+     */
+    public static List<ComponentCycle> shortestCycles(List<List<Integer>> adj,
+                                                      List<List<Integer>> comps,
+                                                      long timeBudgetMs,
+                                                      MetricsTracker m) {
+        m.start();
+        int n = adj.size();
+        int[] compOf = SCCUtils.buildVertexToComp(comps, n);
+        // position of each vertex inside its component (disjoint per component, safe to share)
+        int[] local = new int[n];
+        for (List<Integer> comp : comps) {
+            for (int i = 0; i < comp.size(); i++) local[comp.get(i)] = i;
+        }
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+
+        List<Integer> nonTrivial = new ArrayList<>();
+        for (int cid = 0; cid < comps.size(); cid++) {
+            List<Integer> comp = comps.get(cid);
+            if (comp.size() > 1 || adj.get(comp.get(0)).contains(comp.get(0))) {
+                nonTrivial.add(cid);
+            }
+        }
+
+        List<ComponentCycle> result = nonTrivial.parallelStream()
+                .map(cid -> shortestCycle(cid, comps.get(cid), adj, compOf, local, deadline))
+                .collect(Collectors.toList());
+        m.stop();
+        return result;
+    }
+
+    private static ComponentCycle shortestCycle(int cid,
+                                                List<Integer> comp,
+                                                List<List<Integer>> adj,
+                                                int[] compOf,
+                                                int[] local,
+                                                long deadline) {
+        for (int v : comp) {
+            if (adj.get(v).contains(v)) {
+                return new ComponentCycle(cid, List.of(v), true);
+            }
+        }
+
+        int k = comp.size();
+        int[] dist = new int[k];
+        int[] parent = new int[k];
+        int[] queue = new int[k];
+        List<Integer> best = null;
+
+        for (int s : comp) {
+            if (best != null && (best.size() == 2 || System.nanoTime() > deadline)) {
+                return new ComponentCycle(cid, best, best.size() == 2);
+            }
+            List<Integer> c = (best == null)
+                    ? cycleThrough(s, cid, Integer.MAX_VALUE, Long.MAX_VALUE, adj, compOf, local, dist, parent, queue)
+                    : cycleThrough(s, cid, best.size(), deadline, adj, compOf, local, dist, parent, queue);
+            if (c == TIMED_OUT) return new ComponentCycle(cid, best, false);
+            if (c != null) best = c;
+        }
+        return new ComponentCycle(cid, best, true);
+    }
+
+    /**
+     * BFS from s inside component cid. Returns the shortest cycle through s
+     * if it is shorter than {@code limit}, null if there is none, or
+     * {@link #TIMED_OUT} once {@code deadline} has passed.
+     */
+    private static List<Integer> cycleThrough(int s,
+                                              int cid,
+                                              int limit,
+                                              long deadline,
+                                              List<List<Integer>> adj,
+                                              int[] compOf,
+                                              int[] local,
+                                              int[] dist,
+                                              int[] parent,
+                                              int[] queue) {
+        Arrays.fill(dist, -1);
+        int head = 0, tail = 0;
+        dist[local[s]] = 0;
+        parent[local[s]] = -1;
+        queue[tail++] = s;
+
+        while (head < tail) {
+            if ((head & DEADLINE_CHECK_MASK) == DEADLINE_CHECK_MASK && System.nanoTime() > deadline) {
+                return TIMED_OUT;
+            }
+            int x = queue[head++];
+            int dx = dist[local[x]];
+            if (dx + 1 >= limit) return null; // cannot beat the current best
+            for (int y : adj.get(x)) {
+                if (compOf[y] != cid) continue;
+                if (y == s) {
+                    // path s → ... → x, closed by x → s
+                    List<Integer> cycle = new ArrayList<>();
+                    for (int v = x; v != -1; v = parent[local[v]]) cycle.add(v);
+                    Collections.reverse(cycle);
+                    return cycle;
+                }
+                if (dist[local[y]] == -1) {
+                    dist[local[y]] = dx + 1;
+                    parent[local[y]] = x;
+                    queue[tail++] = y;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -2,6 +2,7 @@ package graph.scc;
 
 import java.util.ArrayList;
 import java.util.List;
+import graph.util.GraphWorkspace;
 import metrics.MetricsTracker;
 
 /**
@@ -25,13 +26,23 @@ public class TarjanSCC {
     private final List<List<Integer>> comps = new ArrayList<>();
 
     public TarjanSCC(List<List<Integer>> g, MetricsTracker metrics) {
+        this(g, metrics, new GraphWorkspace());
+    }
+
+    /**
+     * Takes disc/low/onStack/stack from a shared workspace instead of
+     * allocating them, and records their size as the stage's peak bytes.
+     */
+    public TarjanSCC(List<List<Integer>> g, MetricsTracker metrics, GraphWorkspace ws) {
         this.g = g;
         this.n = g.size();
         this.metrics = metrics;
-        this.disc = new int[n];
-        this.low = new int[n];
-        this.onStack = new boolean[n];
-        this.stack = new int[n];
+        ws.beginStage();
+        this.disc = ws.zeroedInts("tarjan.disc", n);
+        this.low = ws.ints("tarjan.low", n);
+        this.onStack = ws.flags("tarjan.onStack", n);
+        this.stack = ws.ints("tarjan.stack", n);
+        metrics.recordBytes(ws.stageBytes());
     }
 
     /**
@@ -1,6 +1,7 @@
 package graph.topo;
 
 import java.util.*;
+import graph.util.GraphWorkspace;
 import metrics.MetricsTracker;
 
 /**
@@ -9,29 +10,41 @@ import metrics.MetricsTracker;
 public class KahnTopologicalSort {
 
     public static List<Integer> topo(List<List<Integer>> g, MetricsTracker m) {
+        return topo(g, m, new GraphWorkspace());
+    }
+
+    /**
+     * Same as {@link #topo(List, MetricsTracker)}, with indeg and the queue
+     * taken from a shared workspace. Each vertex is enqueued at most once,
+     * so a plain int[n] array is enough for the FIFO.
+     */
+    public static List<Integer> topo(List<List<Integer>> g, MetricsTracker m, GraphWorkspace ws) {
         int n = g.size();
-        int[] indeg = new int[n];
+        ws.beginStage();
+        int[] indeg = ws.zeroedInts("kahn.indeg", n);
+        int[] q = ws.ints("kahn.queue", n);
+        m.recordBytes(ws.stageBytes());
+        int head = 0, tail = 0;
         for (int v = 0; v < n; v++) {
             for (int to : g.get(v)) {
                 indeg[to]++;
             }
         }
-        Queue<Integer> q = new ArrayDeque<>();
         for (int v = 0; v < n; v++) {
             if (indeg[v] == 0) {
-                q.add(v);
+                q[tail++] = v;
                 m.incTopo();
             }
         }
         m.start();
         List<Integer> order = new ArrayList<>();
-        while (!q.isEmpty()) {
-            int v = q.remove();
+        while (head < tail) {
+            int v = q[head++];
             m.incTopo(); // pop
             order.add(v);
             for (int to : g.get(v)) {
                 if (--indeg[to] == 0) {
-                    q.add(to);
+                    q[tail++] = to;
                     m.incTopo(); // push
                 }
             }
@@ -0,0 +1,144 @@
+package graph.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reusable scratch buffers shared by all pipeline stages.
+ * One workspace is meant to live for a whole batch of graphs: buffers are
+ * keyed by slot name, reused while large enough and grown otherwise, and the
+ * total retained size is kept under a configurable memory budget.
+ *
+ * Buffers handed out by a workspace stay valid only until the same slot is
+ * requested again. Not thread-safe.
+ */
+public final class GraphWorkspace {
+
+    /** Budget value meaning "no limit". */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final long budgetBytes;
+    private final Map<String, int[]> ints = new HashMap<>();
+    private final Map<String, long[]> longs = new HashMap<>();
+    private final Map<String, boolean[]> flags = new HashMap<>();
+
+    private long heldBytes;
+    private long stageBytes;
+
+    public GraphWorkspace() {
+        this(UNLIMITED);
+    }
+
+    /**
+     * @param budgetBytes maximum bytes retained by all buffers together
+     */
+    public GraphWorkspace(long budgetBytes) {
+        if (budgetBytes <= 0) throw new IllegalArgumentException("budget must be positive: " + budgetBytes);
+        this.budgetBytes = budgetBytes;
+    }
+
+    /** Starts a new stage; bytes requested from now on are counted for it. */
+    public void beginStage() {
+        stageBytes = 0;
+    }
+
+    /** @return bytes requested since the last {@link #beginStage()} */
+    public long stageBytes() {
+        return stageBytes;
+    }
+
+    /** @return bytes currently retained by the workspace */
+    public long heldBytes() {
+        return heldBytes;
+    }
+
+    /** @return configured memory budget in bytes */
+    public long budgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Returns an int buffer with length at least n. Contents are unspecified.
+     */
+    public int[] ints(String slot, int n) {
+        stageBytes += 4L * n;
+        int[] buf = ints.get(slot);
+        if (buf != null && buf.length >= n) return buf;
+        int size = grownSize(buf == null ? 0 : buf.length, n, 4);
+        buf = new int[size];
+        ints.put(slot, buf);
+        return buf;
+    }
+
+    /**
+     * Returns an int buffer with length at least n and the first n entries zeroed.
+     */
+    public int[] zeroedInts(String slot, int n) {
+        int[] buf = ints(slot, n);
+        Arrays.fill(buf, 0, n, 0);
+        return buf;
+    }
+
+    /**
+     * Returns a long buffer with length at least n. Contents are unspecified.
+     */
+    public long[] longs(String slot, int n) {
+        stageBytes += 8L * n;
+        long[] buf = longs.get(slot);
+        if (buf != null && buf.length >= n) return buf;
+        int size = grownSize(buf == null ? 0 : buf.length, n, 8);
+        buf = new long[size];
+        longs.put(slot, buf);
+        return buf;
+    }
+
+    /**
+     * Returns a boolean buffer with length at least n and the first n entries cleared.
+     */
+    public boolean[] flags(String slot, int n) {
+        stageBytes += n;
+        boolean[] buf = flags.get(slot);
+        if (buf == null || buf.length < n) {
+            buf = new boolean[grownSize(buf == null ? 0 : buf.length, n, 1)];
+            flags.put(slot, buf);
+        } else {
+            Arrays.fill(buf, 0, n, false);
+        }
+        return buf;
+    }
+
+    /** Drops all buffers. */
+    public void clear() {
+        ints.clear();
+        longs.clear();
+        flags.clear();
+        heldBytes = 0;
+    }
+
+    /**
+     * Picks the new capacity for a buffer of {@code oldLen} that must hold n elements:
+     * 1.5x growth when it fits the budget, exactly n otherwise.
+     */
+    private int grownSize(int oldLen, int n, int elemBytes) {
+        long grown = Math.max(n, oldLen + (oldLen >> 1));
+        if (grown > Integer.MAX_VALUE - 8 || !fits((long) elemBytes * oldLen, grown * elemBytes)) {
+            grown = n;
+        }
+        replace((long) elemBytes * oldLen, grown * elemBytes);
+        return (int) grown;
+    }
+
+    private boolean fits(long oldBytes, long newBytes) {
+        return heldBytes - oldBytes + newBytes <= budgetBytes;
+    }
+
+    /** Accounts for swapping a buffer of oldBytes with one of newBytes. */
+    private void replace(long oldBytes, long newBytes) {
+        if (!fits(oldBytes, newBytes)) {
+            throw new IllegalStateException("workspace budget exceeded: need "
+                    + (heldBytes - oldBytes + newBytes) + " bytes, budget " + budgetBytes);
+        }
+        heldBytes += newBytes - oldBytes;
+    }
+}
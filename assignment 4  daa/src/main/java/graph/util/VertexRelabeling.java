@@ -0,0 +1,220 @@
+package graph.util;
+
+import java.util.*;
+
+/**
+ * Renumbers graph vertices for memory locality.
+ * After a topological relabeling the DP passes scan {@code dist} sequentially
+ * and most edge targets lie a short distance ahead of their source.
+ * Edge order inside each adjacency list is preserved, so path results
+ * (including parent tie-breaking) map back unchanged.
+ *
+ * newId[old] = new label, oldId[new] = original label.
+ */
+public final class VertexRelabeling {
+
+    private final int[] newId;
+    private final int[] oldId;
+
+    private VertexRelabeling(int[] oldId) {
+        this.oldId = oldId;
+        this.newId = new int[oldId.length];
+        for (int i = 0; i < oldId.length; i++) {
+            newId[oldId[i]] = i;
+        }
+    }
+
+    /**
+     * Labels vertices in topological order.
+     * Vertices missing from {@code topo} (cyclic leftovers) get the last labels.
+     *
+     * @param topo topological order (e.g. of the condensation DAG)
+     * @param n    total number of vertices
+     * @return relabeling
+     */
+    public static VertexRelabeling topological(List<Integer> topo, int n) {
+        int[] oldId = new int[n];
+        boolean[] placed = new boolean[n];
+        int next = 0;
+        for (int v : topo) {
+            placed[v] = true;
+            oldId[next++] = v;
+        }
+        for (int v = 0; v < n; v++) {
+            if (!placed[v]) oldId[next++] = v;
+        }
+        return new VertexRelabeling(oldId);
+    }
+
+    /**
+     * Labels vertices in BFS order over outgoing edges,
+     * restarting from the smallest unvisited vertex.
+     *
+     * @param adj directed graph
+     * @return relabeling
+     */
+    public static VertexRelabeling bfs(List<List<Integer>> adj) {
+        int n = adj.size();
+        int[] oldId = new int[n];
+        boolean[] seen = new boolean[n];
+        int head = 0, tail = 0;
+        for (int s = 0; s < n; s++) {
+            if (seen[s]) continue;
+            seen[s] = true;
+            oldId[tail++] = s;
+            while (head < tail) {
+                int v = oldId[head++];
+                for (int to : adj.get(v)) {
+                    if (!seen[to]) {
+                        seen[to] = true;
+                        oldId[tail++] = to;
+                    }
+                }
+            }
+        }
+        return new VertexRelabeling(oldId);
+    }
+
+    /**
+     * Reverse Cuthill–McKee order on the undirected view of the graph.
+     * Each connected part starts from its minimum-degree vertex and
+     * neighbours are visited by increasing degree.
+     *
+     * @param adj directed graph
+     * @return relabeling
+     */
+    public static VertexRelabeling reverseCuthillMcKee(List<List<Integer>> adj) {
+        int n = adj.size();
+        List<List<Integer>> und = new ArrayList<>();
+        for (int i = 0; i < n; i++) und.add(new ArrayList<>());
+        for (int v = 0; v < n; v++) {
+            for (int to : adj.get(v)) {
+                und.get(v).add(to);
+                und.get(to).add(v);
+            }
+        }
+        int[] deg = new int[n];
+        for (int v = 0; v < n; v++) deg[v] = und.get(v).size();
+        Comparator<Integer> byDegree = Comparator.<Integer>comparingInt(x -> deg[x]).thenComparingInt(x -> x);
+
+        Integer[] starts = new Integer[n];
+        for (int v = 0; v < n; v++) starts[v] = v;
+        Arrays.sort(starts, byDegree);
+
+        int[] order = new int[n];
+        boolean[] seen = new boolean[n];
+        int head = 0, tail = 0;
+        for (int s : starts) {
+            if (seen[s]) continue;
+            seen[s] = true;
+            order[tail++] = s;
+            while (head < tail) {
+                int v = order[head++];
+                List<Integer> next = new ArrayList<>();
+                for (int to : und.get(v)) {
+                    if (!seen[to]) {
+                        seen[to] = true;
+                        next.add(to);
+                    }
+                }
+                next.sort(byDegree);
+                for (int to : next) order[tail++] = to;
+            }
+        }
+
+        int[] oldId = new int[n];
+        for (int i = 0; i < n; i++) oldId[i] = order[n - 1 - i];
+        return new VertexRelabeling(oldId);
+    }
+
+    /** @return new label of original vertex v */
+    public int newId(int v) {
+        return newId[v];
+    }
+
+    /** @return original label of relabeled vertex v */
+    public int oldId(int v) {
+        return oldId[v];
+    }
+
+    /** @return number of vertices */
+    public int size() {
+        return oldId.length;
+    }
+
+    /** Relabels an unweighted adjacency list. */
+    public List<List<Integer>> apply(List<List<Integer>> adj) {
+        List<List<Integer>> out = new ArrayList<>(oldId.length);
+        for (int v : oldId) {
+            List<Integer> tos = new ArrayList<>(adj.get(v).size());
+            for (int to : adj.get(v)) tos.add(newId[to]);
+            out.add(tos);
+        }
+        return out;
+    }
+
+    /** Relabels a weighted adjacency list of int[]{to, weight}. */
+    public List<List<int[]>> applyWeighted(List<List<int[]>> adjW) {
+        List<List<int[]>> out = new ArrayList<>(oldId.length);
+        for (int v : oldId) {
+            List<int[]> tos = new ArrayList<>(adjW.get(v).size());
+            for (int[] e : adjW.get(v)) tos.add(new int[]{newId[e[0]], e[1]});
+            out.add(tos);
+        }
+        return out;
+    }
+
+    /** Maps a list of original vertices to new labels (e.g. a topo order). */
+    public List<Integer> toNew(List<Integer> vertices) {
+        List<Integer> out = new ArrayList<>(vertices.size());
+        for (int v : vertices) out.add(newId[v]);
+        return out;
+    }
+
+    /** Maps a list of relabeled vertices back to original labels (e.g. a path). */
+    public List<Integer> toOriginal(List<Integer> vertices) {
+        List<Integer> out = new ArrayList<>(vertices.size());
+        for (int v : vertices) out.add(oldId[v]);
+        return out;
+    }
+
+    /**
+     * Re-indexes per-vertex values (e.g. dist) back to original labels. Only the
+     * first n entries are read, so a longer workspace buffer can be passed as is.
+     */
+    public int[] toOriginal(int[] values) {
+        int[] out = new int[oldId.length];
+        for (int i = 0; i < oldId.length; i++) out[oldId[i]] = values[i];
+        return out;
+    }
+
+    /** Same as above for 64-bit values. */
+    public long[] toOriginal(long[] values) {
+        long[] out = new long[oldId.length];
+        for (int i = 0; i < oldId.length; i++) out[oldId[i]] = values[i];
+        return out;
+    }
+
+    /** Re-indexes per-vertex values (e.g. task work) to new labels. */
+    public int[] toNew(int[] values) {
+        int[] out = new int[values.length];
+        for (int i = 0; i < values.length; i++) out[newId[i]] = values[i];
+        return out;
+    }
+
+    /** Same as above for 64-bit values (e.g. node costs). */
+    public long[] toNew(long[] values) {
+        long[] out = new long[values.length];
+        for (int i = 0; i < values.length; i++) out[newId[i]] = values[i];
+        return out;
+    }
+
+    /** Re-indexes a parent array; both indices and stored vertices are mapped, -1 is kept. */
+    public int[] parentsToOriginal(int[] parent) {
+        int[] out = new int[oldId.length];
+        for (int i = 0; i < oldId.length; i++) {
+            out[oldId[i]] = (parent[i] == -1) ? -1 : oldId[parent[i]];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,340 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark history and regression gate for {@code data/metrics.csv}.
+ *
+ * Every accepted run is appended to {@code metrics-history.csv} in long format
+ * (timestamp, commit, env, file, metric, value), so new metric columns never
+ * break old history. A new run is compared per dataset and metric with the
+ * last {@link Config#window()} runs recorded on the same env (JVM, arch, cores):
+ * <ul>
+ *   <li>timings (columns ending in {@code _ms}) are flagged SLOWER when they exceed
+ *       median + max(k · 1.4826 · MAD, threshold · median, floor). They are only warnings,
+ *       because timings are noisy;</li>
+ *   <li>everything else (op counts, bytes, counts, plan choices) is deterministic
+ *       for a given env. Any difference from the most recent accepted run is a DRIFT
+ *       and fails the gate.</li>
+ * </ul>
+ * A failing run is not recorded unless {@code -Dperf.rebaseline=true}, which
+ * accepts the new values as the baseline from the next run on: the drifts are
+ * still reported, but the gate passes.
+ */
+public final class BenchmarkHistory {
+
+    public static final String HISTORY_FILE = "metrics-history.csv";
+    public static final String REPORT_FILE = "regression-report.md";
+    private static final String HEADER = "timestamp,commit,env,file,metric,value";
+
+    /** Scale from MAD to a standard-deviation estimate for normal data. */
+    private static final double MAD_SCALE = 1.4826;
+
+    private BenchmarkHistory() {}
+
+    /**
+     * Gate settings.
+     *
+     * @param window        number of most recent runs forming the baseline
+     * @param minTimingRuns timings are only judged with at least this many baseline runs
+     * @param timeThreshold relative slowdown that is always tolerated (0.5 = 50%)
+     * @param madK          tolerated deviations, in MAD-based standard deviations
+     * @param timeFloorMs   absolute slowdown that is always tolerated
+     * @param rebaseline    accept drifts: record the run and pass, still reporting them
+     */
+    public record Config(int window,
+                         int minTimingRuns,
+                         double timeThreshold,
+                         double madK,
+                         double timeFloorMs,
+                         boolean rebaseline) {
+
+        /** Settings from -Dperf.window, -Dperf.min.runs, -Dperf.time.threshold, -Dperf.mad.k, -Dperf.time.floor.ms, -Dperf.rebaseline. */
+        public static Config fromSystemProperties() {
+            return new Config(
+                    Integer.getInteger("perf.window", 20),
+                    Integer.getInteger("perf.min.runs", 3),
+                    Double.parseDouble(System.getProperty("perf.time.threshold", "0.5")),
+                    Double.parseDouble(System.getProperty("perf.mad.k", "3")),
+                    Double.parseDouble(System.getProperty("perf.time.floor.ms", "1")),
+                    Boolean.getBoolean("perf.rebaseline"));
+        }
+    }
+
+    /** Outcome for one dataset metric. */
+    public enum Status { OK, NEW, SLOWER, DRIFT }
+
+    /**
+     * Comparison of one dataset metric with its baseline.
+     *
+     * @param baseline median of the baseline runs for timings, value of the latest accepted run otherwise; null if NEW
+     * @param mad      median absolute deviation of the baseline (0 for deterministic metrics)
+     * @param runs     number of baseline runs that had this metric
+     */
+    public record Finding(String file,
+                          String metric,
+                          String value,
+                          String baseline,
+                          double mad,
+                          int runs,
+                          Status status) {}
+
+    /**
+     * Result of one gate run.
+     *
+     * @param baselineRuns runs in the baseline window
+     * @param findings     one finding per dataset metric of the new run
+     * @param recorded     true if the run was appended to the history
+     * @param rebaselined  true if drifts were accepted as the new baseline
+     */
+    public record Report(String commit,
+                         String env,
+                         int baselineRuns,
+                         List<Finding> findings,
+                         boolean recorded,
+                         boolean rebaselined) {
+
+        /** @return number of findings with the given status */
+        public long count(Status s) {
+            return findings.stream().filter(f -> f.status() == s).count();
+        }
+
+        /** @return true if any deterministic metric drifted and the drift was not accepted */
+        public boolean failed() {
+            return !rebaselined && count(Status.DRIFT) > 0;
+        }
+    }
+
+    /**
+     * Maven entry point ({@code mvn verify -Pperf-gate}).
+     *
+     * @param args optional metrics CSV (default data/metrics.csv) and history dir (default data/history)
+     */
+    public static void main(String[] args) throws IOException {
+        Path metrics = Paths.get(args.length > 0 ? args[0] : "data/metrics.csv");
+        Path dir = Paths.get(args.length > 1 ? args[1] : "data/history");
+        Report r = check(metrics, dir, commit(), env(), Config.fromSystemProperties());
+        System.out.println("Regression gate: " + r.findings().size() + " metrics vs " + r.baselineRuns()
+                + " baseline runs; drift=" + r.count(Status.DRIFT) + ", slower=" + r.count(Status.SLOWER)
+                + ", new=" + r.count(Status.NEW) + (r.recorded() ? "; run recorded" : "; run NOT recorded")
+                + (r.rebaselined() ? " as the new baseline" : "")
+                + " (report: " + dir.resolve(REPORT_FILE) + ")");
+        if (r.failed()) {
+            throw new IllegalStateException(r.count(Status.DRIFT) + " operation-count drift(s) against the baseline; see "
+                    + dir.resolve(REPORT_FILE) + " (rerun with -Dperf.rebaseline=true to accept them)");
+        }
+    }
+
+    /**
+     * Compares a metrics CSV with the history, writes the report and records the run.
+     *
+     * @param metricsCsv metrics written by the integration test
+     * @param historyDir directory of the history and the report
+     * @param commit     commit id stored with the run
+     * @param env        environment key; only runs with the same key form the baseline
+     * @param cfg        gate settings
+     * @return report
+     */
+    public static Report check(Path metricsCsv, Path historyDir, String commit, String env, Config cfg)
+            throws IOException {
+        if (!Files.exists(metricsCsv)) {
+            throw new IllegalStateException(metricsCsv + " missing: run the tests first");
+        }
+        Map<String, Map<String, String>> current = readMetrics(metricsCsv);
+        Path historyFile = historyDir.resolve(HISTORY_FILE);
+        List<String[]> history = readHistory(historyFile);
+
+        // baseline: last `window` runs of the same env, in the order they were recorded
+        LinkedHashSet<String> runs = new LinkedHashSet<>();
+        for (String[] row : history) {
+            if (row[2].equals(env)) runs.add(row[0]);
+        }
+        List<String> window = new ArrayList<>(runs);
+        window = window.subList(Math.max(0, window.size() - cfg.window()), window.size());
+        Set<String> inWindow = new HashSet<>(window);
+        Map<String, List<String>> baseline = new HashMap<>();
+        for (String[] row : history) {
+            if (row[2].equals(env) && inWindow.contains(row[0])) {
+                baseline.computeIfAbsent(row[3] + "," + row[4], k -> new ArrayList<>()).add(row[5]);
+            }
+        }
+
+        List<Finding> findings = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> file : current.entrySet()) {
+            for (Map.Entry<String, String> metric : file.getValue().entrySet()) {
+                List<String> past = baseline.get(file.getKey() + "," + metric.getKey());
+                findings.add(compare(file.getKey(), metric.getKey(), metric.getValue(), past, cfg));
+            }
+        }
+
+        boolean drifted = findings.stream().anyMatch(f -> f.status() == Status.DRIFT);
+        boolean rebaselined = drifted && cfg.rebaseline();
+        Report report = new Report(commit, env, window.size(), findings, !drifted || rebaselined, rebaselined);
+        Files.createDirectories(historyDir);
+        if (report.recorded()) append(historyFile, current, commit, env);
+        writeReport(historyDir.resolve(REPORT_FILE), report, cfg);
+        return report;
+    }
+
+    private static Finding compare(String file, String metric, String value, List<String> past, Config cfg) {
+        if (past == null || past.isEmpty()) {
+            return new Finding(file, metric, value, null, 0, 0, Status.NEW);
+        }
+        double[] xs = numbers(past);
+        if (!isTiming(metric) || xs == null || !isNumber(value)) {
+            // deterministic: the most recent accepted run is the baseline, so a rebaseline takes effect at once
+            String last = past.get(past.size() - 1);
+            boolean same = (isNumber(last) && isNumber(value))
+                    ? Double.parseDouble(last) == Double.parseDouble(value)
+                    : last.equals(value);
+            return new Finding(file, metric, value, last, 0, past.size(), same ? Status.OK : Status.DRIFT);
+        }
+        double med = median(xs);
+        double[] dev = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) dev[i] = Math.abs(xs[i] - med);
+        double mad = median(dev);
+        double x = Double.parseDouble(value);
+
+        double allowed = Math.max(cfg.madK() * MAD_SCALE * mad,
+                Math.max(cfg.timeThreshold() * med, cfg.timeFloorMs()));
+        Status status = (past.size() >= cfg.minTimingRuns() && x > med + allowed) ? Status.SLOWER : Status.OK;
+        return new Finding(file, metric, value, format(med), mad, past.size(), status);
+    }
+
+    /** @return true for wall-clock columns, which are judged statistically */
+    public static boolean isTiming(String metric) {
+        return metric.endsWith("_ms");
+    }
+
+    /** Reads metrics.csv into file → (column → value), keeping column order. */
+    private static Map<String, Map<String, String>> readMetrics(Path csv) throws IOException {
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) throw new IllegalStateException(csv + " is empty");
+        String[] header = lines.get(0).split(",", -1);
+        Map<String, Map<String, String>> out = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            String[] cols = line.split(",", -1);
+            if (cols.length != header.length) {
+                throw new IllegalStateException(csv + ": expected " + header.length + " columns: " + line);
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int j = 1; j < header.length; j++) row.put(header[j], cols[j]);
+            out.put(cols[0], row);
+        }
+        return out;
+    }
+
+    private static List<String[]> readHistory(Path file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        if (!Files.exists(file)) return rows;
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            String[] cols = line.split(",", -1);
+            if (cols.length == 6) rows.add(cols);
+        }
+        return rows;
+    }
+
+    private static void append(Path file, Map<String, Map<String, String>> current, String commit, String env)
+            throws IOException {
+        boolean fresh = !Files.exists(file);
+        String ts = Instant.now().toString();
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (fresh) w.write(HEADER + "\n");
+            for (Map.Entry<String, Map<String, String>> ds : current.entrySet()) {
+                for (Map.Entry<String, String> m : ds.getValue().entrySet()) {
+                    w.write(String.join(",", ts, commit, env, ds.getKey(), m.getKey(), m.getValue()));
+                    w.write("\n");
+                }
+            }
+        }
+    }
+
+    private static void writeReport(Path file, Report r, Config cfg) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Performance regression report\n\n");
+        sb.append("- commit: ").append(r.commit()).append('\n');
+        sb.append("- env: ").append(r.env()).append('\n');
+        sb.append("- baseline: ").append(r.baselineRuns()).append(" run(s), window ").append(cfg.window()).append('\n');
+        sb.append("- timing rule: value > median + max(").append(cfg.madK()).append(" * 1.4826 * MAD, ")
+                .append(cfg.timeThreshold()).append(" * median, ").append(cfg.timeFloorMs()).append(" ms)\n");
+        sb.append("- compared: ").append(r.findings().size())
+                .append(", drift: ").append(r.count(Status.DRIFT))
+                .append(", slower: ").append(r.count(Status.SLOWER))
+                .append(", new: ").append(r.count(Status.NEW)).append('\n');
+        sb.append("- result: ").append(r.failed() ? "FAIL" : "PASS")
+                .append(r.rebaselined() ? " (drifts accepted as the new baseline)" : "")
+                .append(r.recorded() ? " (recorded)" : " (not recorded)").append("\n\n");
+
+        sb.append("| status | file | metric | value | baseline (median / last) | MAD | runs |\n");
+        sb.append("|---|---|---|---|---|---|---|\n");
+        for (Finding f : r.findings()) {
+            if (f.status() == Status.OK || f.status() == Status.NEW) continue;
+            sb.append("| ").append(f.status()).append(" | ").append(f.file()).append(" | ").append(f.metric())
+                    .append(" | ").append(f.value()).append(" | ").append(f.baseline())
+                    .append(" | ").append(format(f.mad())).append(" | ").append(f.runs()).append(" |\n");
+        }
+        Files.writeString(file, sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    /** @return commit from -Dperf.commit, $GIT_COMMIT or {@code git describe}, else "unknown" */
+    static String commit() {
+        String c = System.getProperty("perf.commit", System.getenv("GIT_COMMIT"));
+        if (c != null && !c.isBlank()) return c.trim();
+        try {
+            Process p = new ProcessBuilder("git", "describe", "--always", "--dirty").redirectErrorStream(true).start();
+            String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (p.waitFor(10, TimeUnit.SECONDS) && p.exitValue() == 0 && !out.isEmpty()) return out;
+        } catch (IOException e) {
+            // no git on PATH
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "unknown";
+    }
+
+    /** @return JVM version and vendor VM, arch and core count (commas removed) */
+    static String env() {
+        String s = System.getProperty("java.version") + " " + System.getProperty("java.vm.name")
+                + " " + System.getProperty("os.arch") + " " + Runtime.getRuntime().availableProcessors() + "cpu";
+        return s.replace(',', ';');
+    }
+
+    private static boolean isNumber(String s) {
+        try {
+            Double.parseDouble(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** @return the values as doubles, or null if any is not a number */
+    private static double[] numbers(List<String> values) {
+        double[] xs = new double[values.size()];
+        for (int i = 0; i < xs.length; i++) {
+            if (!isNumber(values.get(i))) return null;
+            xs[i] = Double.parseDouble(values.get(i));
+        }
+        return xs;
+    }
+
+    private static double median(double[] xs) {
+        double[] s = xs.clone();
+        Arrays.sort(s);
+        int k = s.length / 2;
+        return (s.length % 2 == 1) ? s[k] : (s[k - 1] + s[k]) / 2;
+    }
+
+    private static String format(double x) {
+        return (x == Math.rint(x) && Math.abs(x) < 1e15) ? String.valueOf((long) x) : String.valueOf(x);
+    }
+}
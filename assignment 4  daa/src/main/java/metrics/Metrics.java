@@ -10,8 +10,11 @@ public interface Metrics {
     void incDfs();
     void incTopo();
     void incRelax();
+    void addRelax(long count);
+    void recordBytes(long bytes);
 
     long getDfsOps();
     long getTopoOps();
     long getRelaxOps();
+    long getPeakBytes();
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ public final class MetricsTracker implements Metrics {
     private long topoOps;
     private long relaxOps;
 
+    private long peakBytes;
+
     /** Start timer. */
     @Override
     public void start() {
@@ -54,6 +56,18 @@ public final class MetricsTracker implements Metrics {
         relaxOps++;
     }
 
+    /** Count a batch of relaxations (parallel DAG-SP). */
+    @Override
+    public void addRelax(long count) {
+        relaxOps += count;
+    }
+
+    /** Record scratch memory used by one run of the stage; keeps the maximum. */
+    @Override
+    public void recordBytes(long bytes) {
+        peakBytes = Math.max(peakBytes, bytes);
+    }
+
     /** Getters. **/
     @Override
     public long getDfsOps() {
@@ -70,6 +84,11 @@ public final class MetricsTracker implements Metrics {
         return relaxOps;
     }
 
+    @Override
+    public long getPeakBytes() {
+        return peakBytes;
+    }
+
     /** Summary string with time and counters. */
     @Override
     public String toString() {
@@ -78,6 +97,7 @@ public final class MetricsTracker implements Metrics {
                 ", dfsOps=" + dfsOps +
                 ", topoOps=" + topoOps +
                 ", relaxOps=" + relaxOps +
+                ", peakBytes=" + peakBytes +
                 '}';
     }
 }
\ No newline at end of file
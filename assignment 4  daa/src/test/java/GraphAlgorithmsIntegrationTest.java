@@ -4,10 +4,21 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import graph.dagsp.DAGShortestPath;
 import graph.dagsp.DAGLongestPath;
+import graph.dagsp.ParallelDAGPaths;
+import graph.dist.BspCluster;
+import graph.dom.DominatorTree;
+import graph.ooc.OutOfCorePipeline;
+import graph.ooc.PartitionedEdgeStore;
+import graph.plan.PipelinePlanner;
 import graph.scc.TarjanSCC;
 import graph.scc.CondensationBuilder;
+import graph.scc.ComponentWorkSpan;
+import graph.scc.CycleDiagnostics;
 import graph.topo.KahnTopologicalSort;
+import graph.util.GraphWorkspace;
 import graph.util.SCCUtils;
+import graph.util.VertexRelabeling;
+import metrics.BenchmarkHistory;
 import metrics.MetricsTracker;
 import org.junit.jupiter.api.Test;
 
@@ -15,9 +26,12 @@ import java.io.BufferedWriter;
 import java.nio.file.*;
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * Integration test that runs SCC → Condensation → Topo → DAG-SP
- * on every JSON dataset in /data and writes metrics.
+ * (stages chosen by {@link PipelinePlanner}) on every JSON dataset in /data
+ * and writes metrics.
  */
 public class GraphAlgorithmsIntegrationTest {
 
@@ -25,6 +39,9 @@ public class GraphAlgorithmsIntegrationTest {
     private static final Path OUT_JSON = DATA_DIR.resolve("output.json");
     private static final Path OUT_CSV = DATA_DIR.resolve("metrics.csv");
 
+    /** Scratch memory budget shared by all datasets (-Dworkspace.budget.bytes=...). */
+    private static final long WORKSPACE_BUDGET = Long.getLong("workspace.budget.bytes", 256L << 20);
+
     /** Edge format in JSON. */
     public static class EdgeDTO { public int u, v, w; }
 
@@ -35,14 +52,15 @@ public class GraphAlgorithmsIntegrationTest {
         public List<EdgeDTO> edges;
         public Integer source;
         public String weight_model;
+        /** Optional work per vertex (task); 1 for every vertex when absent. */
+        public int[] work;
     }
 
     @Test
     void runAllJsonDatasets() throws Exception {
         ObjectMapper mapper = new ObjectMapper();
         ArrayNode results = mapper.createArrayNode();
-
-        if (!Files.exists(DATA_DIR)) throw new IllegalStateException("data/ folder missing");
+        Map<Path, DatasetDTO> datasets = datasets();
         Files.deleteIfExists(OUT_CSV);
 
         try (BufferedWriter csv = Files.newBufferedWriter(OUT_CSV, StandardOpenOption.CREATE)) {
@@ -50,15 +68,17 @@ public class GraphAlgorithmsIntegrationTest {
                     + "Tarjan_SCC_count,Tarjan_time_ms,Tarjan_DFS_ops,"
                     + "Kahn_time_ms,Kahn_queue_ops,"
                     + "DAGSP_short_time_ms,DAGSP_short_relax_ops,"
-                    + "DAGSP_long_time_ms,DAGSP_long_relax_ops,DAGSP_long_max\n");
-
-            try (DirectoryStream<Path> files = Files.newDirectoryStream(DATA_DIR, "*.json")) {
-                for (Path json : files) {
-                    String name = json.getFileName().toString();
-                    if (name.equals("output.json")) continue;
-                    DatasetDTO ds = mapper.readValue(json.toFile(), new TypeReference<>() {});
-                    runAlgorithms(ds, name, results, csv);
-                }
+                    + "DAGSP_long_time_ms,DAGSP_long_relax_ops,DAGSP_long_max,"
+                    + "Tarjan_peak_bytes,Cond_peak_bytes,Kahn_peak_bytes,"
+                    + "DAGSP_short_peak_bytes,DAGSP_long_peak_bytes,"
+                    + "Plan_time_ms,Plan_scc,Plan_dp_engine,Plan_dist_width,"
+                    + "WorkSpan_time_ms,Work_total,Critical_length\n");
+
+            // one workspace for the whole batch: buffers are reused across datasets
+            GraphWorkspace ws = new GraphWorkspace(WORKSPACE_BUDGET);
+
+            for (Map.Entry<Path, DatasetDTO> e : datasets.entrySet()) {
+                runAlgorithms(e.getValue(), e.getKey().getFileName().toString(), results, csv, ws);
             }
         }
 
@@ -69,11 +89,704 @@ public class GraphAlgorithmsIntegrationTest {
                 .writeValue(OUT_JSON.toFile(), root);
     }
 
+    @Test
+    void outOfCorePipelineMatchesInMemoryOnEveryDataset() throws Exception {
+        for (Map.Entry<Path, DatasetDTO> e : datasets().entrySet()) {
+            assertOutOfCoreMatches(e.getKey(), Reference.of(e.getValue()));
+        }
+    }
+
+    @Test
+    void bspClusterMatchesTarjanAndDagSpOnEveryDataset() throws Exception {
+        for (DatasetDTO ds : datasets().values()) {
+            Reference ref = Reference.of(ds);
+            int[] dist = DAGShortestPath.shortestFrom(ref.src(), ref.topo(), ref.dagW(), new MetricsTracker());
+            assertBspMatches(ref.adjW(), ref.comps(), ref.dagW(), ref.src(), dist);
+        }
+    }
+
+    @Test
+    void dominatorsMatchBruteForceOnEveryDataset() throws Exception {
+        for (DatasetDTO ds : datasets().values()) {
+            Reference ref = Reference.of(ds);
+            DominatorTree dom = DominatorTree.build(ref.src(), ref.topo(), ref.dag(), new MetricsTracker());
+            assertDominatorsMatchBruteForce(dom, ref.src(), ref.dag());
+        }
+    }
+
+    @Test
+    void componentSpansMatchBruteForceOnEveryDataset() throws Exception {
+        for (DatasetDTO ds : datasets().values()) {
+            Reference ref = Reference.of(ds);
+            int[] work = (ds.work != null) ? ds.work : ComponentWorkSpan.unitWork(ds.n);
+            ComponentWorkSpan.Result cw = ComponentWorkSpan.compute(ref.adj(), ref.comps(), work, new MetricsTracker());
+            assertSpansMatchBruteForce(cw, ref.adj(), ref.comps(), work);
+        }
+    }
+
+    @Test
+    void parallelLevelsMatchSequentialOnWideDag() {
+        // wide layered DAG so that levels exceed the parallel threshold
+        int layers = 8, width = 5000;
+        int n = layers * width;
+        Random rnd = new Random(42);
+        List<List<int[]>> g = new ArrayList<>();
+        for (int i = 0; i < n; i++) g.add(new ArrayList<>());
+        for (int l = 0; l + 1 < layers; l++) {
+            for (int i = 0; i < width; i++) {
+                int u = l * width + i;
+                for (int k = 0; k < 3; k++) {
+                    int v = (l + 1 + rnd.nextInt(layers - l - 1)) * width + rnd.nextInt(width);
+                    g.get(u).add(new int[]{v, 1 + rnd.nextInt(5)});
+                }
+            }
+        }
+        List<List<Integer>> plain = new ArrayList<>();
+        for (List<int[]> out : g) {
+            List<Integer> tos = new ArrayList<>();
+            for (int[] e : out) tos.add(e[0]);
+            plain.add(tos);
+        }
+        List<Integer> topo = KahnTopologicalSort.topo(plain, new MetricsTracker());
+
+        MetricsTracker shortM = new MetricsTracker();
+        MetricsTracker longM = new MetricsTracker();
+        int[] dist = DAGShortestPath.shortestFrom(0, topo, g, shortM);
+        DAGLongestPath.LongestResult longRes = DAGLongestPath.longestFrom(0, topo, g, longM);
+        assertParallelMatches(0, topo, g, dist, longRes, shortM.getRelaxOps() + longM.getRelaxOps());
+    }
+
+    @Test
+    void plannerSwitchesToLongDistancesWhenIntCanOverflow() {
+        // chain 0 -> 1 -> 2 -> 3 whose total weight does not fit below INF
+        int n = 4;
+        List<List<Integer>> adj = new ArrayList<>();
+        List<List<int[]>> adjW = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            adj.add(new ArrayList<>());
+            adjW.add(new ArrayList<>());
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            adj.get(i).add(i + 1);
+            adjW.get(i).add(new int[]{i + 1, 900_000_000});
+        }
+
+        PipelinePlanner.Plan plan = PipelinePlanner.plan(adj, adjW, new GraphWorkspace(), 1);
+        assertTrue(plan.acyclic());
+        assertEquals(4, plan.levels());
+        assertTrue(plan.longDistances());
+        assertFalse(plan.parallelDp());
+        assertEquals("skip", plan.decision("condensation").choice());
+
+        MetricsTracker m = new MetricsTracker();
+        long[] dist = DAGShortestPath.shortestFromLong(0, plan.probeOrder(), adjW, m);
+        assertArrayEquals(new long[]{0, 900_000_000L, 1_800_000_000L, 2_700_000_000L}, dist);
+        DAGLongestPath.LongestLongResult lr = DAGLongestPath.longestFromLong(0, plan.probeOrder(), adjW, m);
+        assertEquals(2_700_000_000L, lr.dist()[3]);
+        assertEquals(List.of(0, 1, 2, 3), DAGLongestPath.rebuildPath(3, lr.parent()));
+    }
+
+    @Test
+    void skippedCondensationStillCollapsesParallelEdges() {
+        // DAG 0 -> 1 (twice, weights 5 and 2) -> 2, plus 0 -> 2 (weight 1)
+        List<List<Integer>> adj = List.of(List.of(1, 1, 2), List.of(2), List.of());
+        List<List<int[]>> adjW = List.of(
+                List.of(new int[]{1, 5}, new int[]{1, 2}, new int[]{2, 1}),
+                List.of(new int[]{2, 1}),
+                List.of());
+        PipelinePlanner.Plan plan = PipelinePlanner.plan(adj, adjW, new GraphWorkspace(), 1);
+        assertTrue(plan.acyclic());
+        assertSame(plan, PipelinePlanner.withCondensation(plan, plan.probeOrder(), adjW, new GraphWorkspace()));
+
+        List<List<int[]>> collapsed = CondensationBuilder.collapseParallelEdges(adjW, new GraphWorkspace(), new MetricsTracker());
+        assertEquals(2, collapsed.get(0).size());
+        assertArrayEquals(new int[]{1, 2}, collapsed.get(0).get(0));
+        assertArrayEquals(new int[]{1, 5}, adjW.get(0).get(0));
+
+        // same longest path as through Tarjan and the condensation
+        List<List<Integer>> comps = new TarjanSCC(adj, new MetricsTracker()).run();
+        List<List<int[]>> condW = CondensationBuilder.buildWeightedCondensation(adj, adjW, comps);
+        List<Integer> condTopo = KahnTopologicalSort.topo(CondensationBuilder.buildCondensation(adj, comps), new MetricsTracker());
+        int[] compOf = SCCUtils.buildVertexToComp(comps, 3);
+        MetricsTracker m = new MetricsTracker();
+        int[] viaCond = DAGLongestPath.longestFrom(compOf[0], condTopo, condW, m).dist();
+        int[] direct = DAGLongestPath.longestFrom(0, plan.probeOrder(), collapsed, m).dist();
+        for (int v = 0; v < 3; v++) assertEquals(viaCond[compOf[v]], direct[v]);
+        assertEquals(3, direct[2]);
+    }
+
+    @Test
+    void regressionGateFailsOnCountDriftAndWarnsOnSlowTimings() throws Exception {
+        Path dir = Files.createTempDirectory("perf-history");
+        Path csv = dir.resolve("metrics.csv");
+        Path history = dir.resolve("history");
+        BenchmarkHistory.Config cfg = new BenchmarkHistory.Config(20, 3, 0.5, 3, 1, false);
+        try {
+            for (double ms : new double[]{10.0, 11.0, 10.5}) {
+                Files.writeString(csv, "file,Tarjan_time_ms,Tarjan_DFS_ops\na.json," + ms + ",30\n");
+                BenchmarkHistory.Report r = BenchmarkHistory.check(csv, history, "c1", "env", cfg);
+                assertFalse(r.failed());
+                assertTrue(r.recorded());
+            }
+
+            // 3x slower timing is a warning only; the run is still recorded
+            Files.writeString(csv, "file,Tarjan_time_ms,Tarjan_DFS_ops\na.json,31.0,30\n");
+            BenchmarkHistory.Report slow = BenchmarkHistory.check(csv, history, "c2", "env", cfg);
+            assertEquals(1, slow.count(BenchmarkHistory.Status.SLOWER));
+            assertFalse(slow.failed());
+
+            // any op-count change fails and is not recorded
+            Files.writeString(csv, "file,Tarjan_time_ms,Tarjan_DFS_ops\na.json,10.0,31\n");
+            BenchmarkHistory.Report drift = BenchmarkHistory.check(csv, history, "c3", "env", cfg);
+            assertTrue(drift.failed());
+            assertFalse(drift.recorded());
+
+            // accepting the drift passes, still reports it, and makes it the baseline for the very next normal run
+            BenchmarkHistory.Config rebase = new BenchmarkHistory.Config(20, 3, 0.5, 3, 1, true);
+            BenchmarkHistory.Report accepted = BenchmarkHistory.check(csv, history, "c3", "env", rebase);
+            assertFalse(accepted.failed());
+            assertTrue(accepted.rebaselined());
+            assertEquals(1, accepted.count(BenchmarkHistory.Status.DRIFT));
+            assertTrue(accepted.recorded());
+            String report = Files.readString(history.resolve(BenchmarkHistory.REPORT_FILE));
+            assertTrue(report.contains("PASS (drifts accepted as the new baseline)"));
+            assertTrue(report.contains("| DRIFT | a.json | Tarjan_DFS_ops | 31 | 30 |"));
+            BenchmarkHistory.Report next = BenchmarkHistory.check(csv, history, "c4", "env", cfg);
+            assertFalse(next.failed());
+            assertTrue(next.recorded());
+
+            // another env has no baseline yet
+            BenchmarkHistory.Report other = BenchmarkHistory.check(csv, history, "c3", "other", cfg);
+            assertEquals(2, other.count(BenchmarkHistory.Status.NEW));
+            assertTrue(Files.readString(history.resolve(BenchmarkHistory.REPORT_FILE)).contains("PASS"));
+        } finally {
+            try (var files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void largeComponentSpanFallsBackToDfsDagLowerBound() {
+        // one 20-vertex ring: too large for the exact DP, and the DFS tree is the whole ring
+        int n = 20;
+        List<List<Integer>> adj = new ArrayList<>();
+        int[] work = new int[n];
+        for (int v = 0; v < n; v++) {
+            adj.add(new ArrayList<>(List.of((v + 1) % n)));
+            work[v] = v + 1;
+        }
+        List<List<Integer>> comps = new TarjanSCC(adj, new MetricsTracker()).run();
+        assertEquals(1, comps.size());
+
+        ComponentWorkSpan.Result cw = ComponentWorkSpan.compute(adj, comps, work, new MetricsTracker());
+        assertFalse(cw.exact()[0]);
+        assertEquals(n * (n + 1) / 2, cw.work()[0]);
+        // the DFS tree walks the ring once from its root, so the bound is tight here
+        assertEquals(cw.work()[0], cw.span()[0]);
+    }
+
+    @Test
+    void dominatorsStayFastOnDeepChainWithFan() {
+        // chain 0 -> 1 -> ... -> k-1 plus k fan vertices with edges from both 0 and k-1:
+        // every fan vertex intersects the whole chain, which was quadratic with plain idom walks
+        int k = 100_000;
+        int n = 2 * k;
+        List<List<Integer>> dag = new ArrayList<>();
+        for (int v = 0; v < n; v++) dag.add(new ArrayList<>());
+        for (int v = 0; v + 1 < k; v++) dag.get(v).add(v + 1);
+        for (int f = k; f < n; f++) {
+            dag.get(0).add(f);
+            dag.get(k - 1).add(f);
+        }
+        List<Integer> topo = KahnTopologicalSort.topo(dag, new MetricsTracker());
+
+        DominatorTree dom = assertTimeout(java.time.Duration.ofSeconds(5),
+                () -> DominatorTree.build(0, topo, dag, new MetricsTracker()));
+        for (int v = 1; v < k; v++) assertEquals(v - 1, dom.idom(v));
+        for (int f = k; f < n; f++) assertEquals(0, dom.idom(f));
+        assertTrue(dom.dominates(0, n - 1));
+        assertFalse(dom.dominates(k - 1, n - 1));
+        assertEquals(k - 2, dom.cutVertices().size());
+    }
+
+    @Test
+    void workspaceReusesGrownBuffersAndEnforcesBudget() {
+        GraphWorkspace ws = new GraphWorkspace(1000);
+        int[] a = ws.ints("a", 100);
+        assertSame(a, ws.ints("a", 50));           // smaller request reuses the buffer
+        int[] grown = ws.ints("a", 120);
+        assertEquals(150, grown.length);           // 1.5x growth
+        assertSame(grown, ws.ints("a", 140));
+        assertEquals(600, ws.heldBytes());
+
+        // 1.5x would exceed the budget, so the buffer grows to exactly n
+        assertEquals(240, ws.ints("a", 240).length);
+        assertEquals(960, ws.heldBytes());
+
+        // another slot does not fit: nothing is allocated or accounted
+        assertThrows(IllegalStateException.class, () -> ws.ints("b", 20));
+        assertEquals(960, ws.heldBytes());
+        ws.clear();
+        assertEquals(0, ws.heldBytes());
+        assertEquals(20, ws.ints("b", 20).length);
+    }
+
+    @Test
+    void dagPathsRelaxIntoWorkspaceAndCallerArraysWithoutCopying() {
+        GraphWorkspace ws = new GraphWorkspace();
+        List<List<int[]>> small = List.of(List.<int[]>of(new int[]{1, 5}), List.of());
+        List<List<int[]>> large = List.of(List.<int[]>of(new int[]{1, 2}), List.<int[]>of(new int[]{2, 2}), List.of());
+        MetricsTracker m = new MetricsTracker();
+
+        int[] d1 = DAGShortestPath.shortestFrom(0, List.of(0, 1, 2), large, m, ws);
+        assertArrayEquals(new int[]{0, 2, 4}, Arrays.copyOf(d1, 3));
+        int[] d2 = DAGShortestPath.shortestFrom(0, List.of(0, 1), small, m, ws);
+        assertSame(d1, d2);
+        assertArrayEquals(new int[]{0, 5}, Arrays.copyOf(d2, 2));
+
+        DAGLongestPath.LongestResult l1 = DAGLongestPath.longestFrom(0, List.of(0, 1, 2), large, m, ws);
+        assertArrayEquals(new int[]{0, 2, 4}, Arrays.copyOf(l1.dist(), 3));
+        assertArrayEquals(new int[]{-1, 0, 1}, Arrays.copyOf(l1.parent(), 3));
+        DAGLongestPath.LongestResult l2 = DAGLongestPath.longestFrom(0, List.of(0, 1), small, m, ws);
+        assertSame(l1.dist(), l2.dist());
+        assertArrayEquals(new int[]{0, 5}, Arrays.copyOf(l2.dist(), 2));
+
+        // caller-owned outputs are filled in place, only the first n entries are written
+        int[] out = {7, 7, 7, 7};
+        assertSame(out, DAGShortestPath.shortestFrom(0, List.of(0, 1), small, m, out));
+        assertArrayEquals(new int[]{0, 5, 7, 7}, out);
+        int[] dist = new int[3];
+        int[] parent = new int[3];
+        DAGLongestPath.LongestResult l3 = DAGLongestPath.longestFrom(0, List.of(0, 1, 2), large, m, dist, parent);
+        assertSame(dist, l3.dist());
+        assertArrayEquals(new int[]{-1, 0, 1}, parent);
+
+        // 64-bit and level-parallel engines share the workspace and its accounting
+        long[] s64 = DAGShortestPath.shortestFromLong(0, List.of(0, 1, 2), large, m, ws);
+        assertSame(s64, DAGShortestPath.shortestFromLong(0, List.of(0, 1), small, m, ws));
+        assertArrayEquals(new long[]{0, 5}, Arrays.copyOf(s64, 2));
+        DAGLongestPath.LongestLongResult l64 = DAGLongestPath.longestFromLong(0, List.of(0, 1, 2), large, m, ws);
+        assertArrayEquals(new long[]{0, 2, 4}, Arrays.copyOf(l64.dist(), 3));
+        assertSame(l1.parent(), l64.parent());
+        ParallelDAGPaths.LevelGraph levels = ParallelDAGPaths.buildLevels(List.of(0, 1, 2), large);
+        MetricsTracker parM = new MetricsTracker();
+        assertSame(d1, ParallelDAGPaths.shortestFrom(0, levels, parM, ws));
+        assertArrayEquals(new int[]{0, 2, 4}, Arrays.copyOf(d1, 3));
+        assertSame(l1.dist(), ParallelDAGPaths.longestFrom(0, levels, parM, ws).dist());
+        assertEquals(24, parM.getPeakBytes());
+
+        GraphWorkspace tight = new GraphWorkspace(16);
+        assertThrows(IllegalStateException.class,
+                () -> DAGShortestPath.shortestFromLong(0, List.of(0, 1, 2), large, new MetricsTracker(), tight));
+        assertThrows(IllegalStateException.class,
+                () -> ParallelDAGPaths.longestFrom(0, levels, new MetricsTracker(), tight));
+    }
+
+    @Test
+    void bfsAndRcmRelabelingsOrderByLevelAndNarrowBandwidth() {
+        // shuffled labels; vertex 0 stays the root so BFS starts there
+        int n = 63;
+        List<Integer> label = new ArrayList<>();
+        for (int v = 1; v < n; v++) label.add(v);
+        Collections.shuffle(label, new Random(7));
+        label.add(0, 0);
+
+        // complete binary tree: BFS must label it level by level
+        List<List<Integer>> tree = new ArrayList<>();
+        List<List<int[]>> treeW = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            tree.add(new ArrayList<>());
+            treeW.add(new ArrayList<>());
+        }
+        int[] depth = new int[n];
+        for (int i = 1; i < n; i++) {
+            int u = label.get((i - 1) / 2), v = label.get(i);
+            tree.get(u).add(v);
+            treeW.get(u).add(new int[]{v, i % 5 + 1});
+            depth[v] = depth[u] + 1;
+        }
+        VertexRelabeling bfs = VertexRelabeling.bfs(tree);
+        assertPermutation(bfs, n);
+        for (int i = 1; i < n; i++) {
+            assertTrue(depth[bfs.oldId(i - 1)] <= depth[bfs.oldId(i)]);
+        }
+        assertRelabeledMatchesSequential(bfs, tree, treeW);
+
+        // chain in shuffled order: RCM restores bandwidth 1
+        List<List<Integer>> chain = new ArrayList<>();
+        List<List<int[]>> chainW = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            chain.add(new ArrayList<>());
+            chainW.add(new ArrayList<>());
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            chain.get(label.get(i)).add(label.get(i + 1));
+            chainW.get(label.get(i)).add(new int[]{label.get(i + 1), i % 3 + 1});
+        }
+        VertexRelabeling rcm = VertexRelabeling.reverseCuthillMcKee(chain);
+        assertPermutation(rcm, n);
+        assertTrue(bandwidth(chain) > 1);
+        assertEquals(1, bandwidth(rcm.apply(chain)));
+        assertRelabeledMatchesSequential(rcm, chain, chainW);
+    }
+
+    @Test
+    void shortestCyclesHaveTheKnownGirthOfEachComponent() {
+        int n = 24;
+        List<List<Integer>> adj = new ArrayList<>();
+        for (int v = 0; v < n; v++) adj.add(new ArrayList<>());
+        // 5-ring 0..4 with chord 2 -> 0: girth 3
+        ring(adj, 0, 5);
+        adj.get(2).add(0);
+        // plain 6-ring 5..10: girth 6
+        ring(adj, 5, 6);
+        // 11 <-> 12: girth 2
+        ring(adj, 11, 2);
+        // self-loop: girth 1
+        adj.get(13).add(13);
+        // 8-ring 14..21 with chord 17 -> 14: girth 4, although 14 is also on the 8-cycle
+        ring(adj, 14, 8);
+        adj.get(17).add(14);
+        // 22 <-> 23, entered from two other components: girth 2
+        ring(adj, 22, 2);
+        // edges between components only lead forward, so they never close a cycle
+        adj.get(4).add(5);
+        adj.get(10).add(11);
+        adj.get(12).add(13);
+        adj.get(13).add(14);
+        adj.get(21).add(22);
+        adj.get(3).add(22);
+
+        Map<Integer, Integer> girthOf = Map.of(0, 3, 5, 6, 11, 2, 13, 1, 14, 4, 22, 2);
+        List<List<Integer>> comps = new TarjanSCC(adj, new MetricsTracker()).run();
+        int[] compOf = SCCUtils.buildVertexToComp(comps, n);
+        List<CycleDiagnostics.ComponentCycle> cycles =
+                CycleDiagnostics.shortestCycles(adj, comps, 10_000, new MetricsTracker());
+        assertEquals(girthOf.size(), cycles.size());
+        for (CycleDiagnostics.ComponentCycle c : cycles) {
+            assertCycleInComponent(c, adj, comps);
+            assertTrue(c.exact());
+        }
+        for (Map.Entry<Integer, Integer> e : girthOf.entrySet()) {
+            int cid = compOf[e.getKey()];
+            CycleDiagnostics.ComponentCycle c =
+                    cycles.stream().filter(x -> x.component() == cid).findFirst().orElseThrow();
+            assertEquals(e.getValue(), c.length(), "girth of the SCC of " + e.getKey());
+        }
+
+        // no budget: the first BFS of each component still finishes, later ones stop
+        List<List<Integer>> big = new ArrayList<>();
+        for (int v = 0; v < 5000; v++) big.add(new ArrayList<>());
+        ring(big, 0, 5000);
+        big.get(4000).add(3000);
+        // one SCC; the recursive Tarjan would need a 5000-frame stack here
+        List<Integer> all = new ArrayList<>();
+        for (int v = 0; v < 5000; v++) all.add(v);
+        List<List<Integer>> bigComps = List.of(all);
+        List<CycleDiagnostics.ComponentCycle> partial =
+                CycleDiagnostics.shortestCycles(big, bigComps, 0, new MetricsTracker());
+        assertEquals(1, partial.size());
+        assertCycleInComponent(partial.get(0), big, bigComps);
+        assertFalse(partial.get(0).exact());
+    }
+
+    /** Adds the cycle first -> first + 1 -> ... -> first + len - 1 -> first. */
+    private static void ring(List<List<Integer>> adj, int first, int len) {
+        for (int i = 0; i < len; i++) adj.get(first + i).add(first + (i + 1) % len);
+    }
+
+    @Test
+    void outOfCoreSccReadsEdgesAFewTimesOnDeepChainAndRing() throws Exception {
+        int n = 20_000;
+        // resident partitions (indexed in memory) and streamed ones (chunk smaller than a partition)
+        for (int chunk : new int[]{1 << 12, 64}) {
+            for (boolean ring : new boolean[]{false, true}) {
+                OutOfCorePipeline.Limits limits = new OutOfCorePipeline.Limits(64L << 20, 1L << 20, chunk, 8);
+                Path tmp = Files.createTempDirectory("ooc-deep");
+                OutOfCorePipeline.Result r;
+                try (PartitionedEdgeStore store = new PartitionedEdgeStore(tmp, n, 8, chunk, limits.diskBytes())) {
+                    for (int i = 0; i + 1 < n; i++) store.add(i, i + 1, 1);
+                    if (ring) store.add(n - 1, 0, 1);
+                    store.finish();
+                    for (int badSource : new int[]{-1, n}) {
+                        assertThrows(IllegalArgumentException.class,
+                                () -> OutOfCorePipeline.runStore(store, badSource, limits, new MetricsTracker()));
+                    }
+                    r = OutOfCorePipeline.runStore(store, 0, limits, new MetricsTracker());
+                } finally {
+                    Files.delete(tmp);
+                }
+                String what = (ring ? "ring" : "chain") + ", chunk " + chunk;
+                assertEquals(ring ? 1 : n, r.compCount(), what);
+                // two copies per edge; trimming capped at 8 passes per round needed about 0.65 * n full passes
+                assertTrue(r.edgesRead() <= 8L * r.edges(), what + ": " + r.edgesRead() + " edges read");
+                if (!ring) assertEquals(n - 1, r.longest().dist()[r.compOf()[n - 1]], what);
+            }
+        }
+    }
+
+    @Test
+    void spanIsHeaviestByTaskWorkNotAlongTheCriticalPath() {
+        // 0 -> 1 has the heavy edge, 0 -> 2 the heavy task
+        List<List<Integer>> adj = List.of(List.of(1, 2), List.of(), List.of());
+        List<List<int[]>> adjW = List.of(List.of(new int[]{1, 100}, new int[]{2, 1}), List.of(), List.of());
+        List<List<Integer>> comps = PipelinePlanner.singletonComponents(3);
+        ComponentWorkSpan.Result cw = ComponentWorkSpan.compute(adj, comps, new int[]{1, 1, 50}, new MetricsTracker());
+        List<Integer> topo = List.of(0, 1, 2);
+
+        DAGLongestPath.LongestLongResult crit =
+                DAGLongestPath.longestFromLong(0, topo, adjW, cw.span(), new MetricsTracker());
+        assertArrayEquals(new long[]{1, 102, 52}, crit.dist());
+        assertEquals(List.of(0, 1), DAGLongestPath.rebuildPath(1, crit.parent()));
+
+        DAGLongestPath.LongestLongResult span =
+                DAGLongestPath.heaviestByNodeCost(0, topo, adj, cw.span(), new MetricsTracker());
+        assertArrayEquals(new long[]{1, 2, 51}, span.dist());
+        assertEquals(List.of(0, 2), DAGLongestPath.rebuildPath(2, span.parent()));
+        assertEquals(52.0 / 51, (double) cw.totalWork() / span.dist()[2]);
+    }
+
+    private static void assertPermutation(VertexRelabeling rl, int n) {
+        assertEquals(n, rl.size());
+        boolean[] used = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            assertFalse(used[rl.newId(v)]);
+            used[rl.newId(v)] = true;
+            assertEquals(v, rl.oldId(rl.newId(v)));
+        }
+    }
+
+    /** Largest |u - v| over all edges. */
+    private static int bandwidth(List<List<Integer>> adj) {
+        int bw = 0;
+        for (int v = 0; v < adj.size(); v++) {
+            for (int to : adj.get(v)) bw = Math.max(bw, Math.abs(v - to));
+        }
+        return bw;
+    }
+
+    /** Sequential DP from vertex 0 on the original DAG, then {@link #assertRelabeledMatches}. */
+    private static void assertRelabeledMatchesSequential(VertexRelabeling rl,
+                                                         List<List<Integer>> adj,
+                                                         List<List<int[]>> adjW) {
+        List<Integer> topo = KahnTopologicalSort.topo(adj, new MetricsTracker());
+        MetricsTracker m = new MetricsTracker();
+        int[] dist = DAGShortestPath.shortestFrom(0, topo, adjW, m);
+        DAGLongestPath.LongestResult longRes = DAGLongestPath.longestFrom(0, topo, adjW, m);
+        assertRelabeledMatches(rl, 0, topo, adjW, dist, longRes);
+    }
+
+    /** Runs the level-parallel engine and checks it against the sequential results. */
+    private static void assertParallelMatches(int src,
+                                              List<Integer> topo,
+                                              List<List<int[]>> g,
+                                              int[] dist,
+                                              DAGLongestPath.LongestResult longRes,
+                                              long relaxOps) {
+        ParallelDAGPaths.LevelGraph levels = ParallelDAGPaths.buildLevels(topo, g);
+        MetricsTracker parM = new MetricsTracker();
+        assertArrayEquals(dist, ParallelDAGPaths.shortestFrom(src, levels, parM));
+        DAGLongestPath.LongestResult parLong = ParallelDAGPaths.longestFrom(src, levels, parM);
+        assertArrayEquals(longRes.dist(), parLong.dist());
+        assertArrayEquals(longRes.parent(), parLong.parent());
+        assertEquals(relaxOps, parM.getRelaxOps());
+    }
+
+    /** Runs the DP on a relabeled DAG and maps the results back. */
+    private static void assertRelabeledMatches(VertexRelabeling rl,
+                                               int src,
+                                               List<Integer> topo,
+                                               List<List<int[]>> g,
+                                               int[] dist,
+                                               DAGLongestPath.LongestResult longRes) {
+        List<List<int[]>> rg = rl.applyWeighted(g);
+        List<Integer> rtopo = rl.toNew(topo);
+        MetricsTracker m = new MetricsTracker();
+        int[] rdist = DAGShortestPath.shortestFrom(rl.newId(src), rtopo, rg, m);
+        assertArrayEquals(dist, rl.toOriginal(rdist));
+        DAGLongestPath.LongestResult rlong = DAGLongestPath.longestFrom(rl.newId(src), rtopo, rg, m);
+        assertArrayEquals(longRes.dist(), rl.toOriginal(rlong.dist()));
+        assertArrayEquals(longRes.parent(), rl.parentsToOriginal(rlong.parent()));
+    }
+
+    /** Checks that a reported cycle is closed and stays inside its component. */
+    private static void assertCycleInComponent(CycleDiagnostics.ComponentCycle c,
+                                               List<List<Integer>> adj,
+                                               List<List<Integer>> comps) {
+        List<Integer> cyc = c.cycle();
+        assertFalse(cyc.isEmpty());
+        for (int i = 0; i < cyc.size(); i++) {
+            int from = cyc.get(i);
+            int to = cyc.get((i + 1) % cyc.size());
+            assertTrue(comps.get(c.component()).contains(from));
+            assertTrue(adj.get(from).contains(to), "missing edge " + from + "->" + to);
+        }
+    }
+
+    /** x dominates y iff y is unreachable from the root once x is removed (x != root). */
+    private static void assertDominatorsMatchBruteForce(DominatorTree dom,
+                                                        int root,
+                                                        List<List<Integer>> dag) {
+        int n = dag.size();
+        boolean[] reach = reachableAvoiding(dag, root, -1);
+        for (int x = 0; x < n; x++) {
+            boolean[] without = (x == root) ? null : reachableAvoiding(dag, root, x);
+            for (int y = 0; y < n; y++) {
+                boolean expected = reach[x] && reach[y] && (x == y || x == root || !without[y]);
+                assertEquals(expected, dom.dominates(x, y), "dominates(" + x + "," + y + ")");
+            }
+        }
+    }
+
+    private static boolean[] reachableAvoiding(List<List<Integer>> g, int root, int banned) {
+        boolean[] seen = new boolean[g.size()];
+        Deque<Integer> stack = new ArrayDeque<>();
+        seen[root] = true;
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            int v = stack.pop();
+            for (int to : g.get(v)) {
+                if (to != banned && !seen[to]) {
+                    seen[to] = true;
+                    stack.push(to);
+                }
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Streams the dataset through the out-of-core pipeline with tiny chunks and
+     * checks SCCs and distances against the in-memory pipeline.
+     */
+    private static void assertOutOfCoreMatches(Path json, Reference ref) throws Exception {
+        int n = ref.adj().size();
+        int[] compOf = ref.compOf();
+        int[] dist = DAGShortestPath.shortestFrom(ref.src(), ref.topo(), ref.dagW(), new MetricsTracker());
+        int[] longDist = DAGLongestPath.longestFrom(ref.src(), ref.topo(), ref.dagW(), new MetricsTracker()).dist();
+
+        OutOfCorePipeline.Limits tiny = new OutOfCorePipeline.Limits(64L << 20, 1L << 20, 4, 3);
+        Path tmp = Files.createTempDirectory("ooc-test");
+        OutOfCorePipeline.Result r;
+        try {
+            r = OutOfCorePipeline.run(json, tmp, tiny, -1, new MetricsTracker());
+        } finally {
+            Files.delete(tmp);
+        }
+
+        assertEquals(ref.comps().size(), r.compCount());
+        int[] oocOf = r.compOf();
+        for (int u = 0; u < n; u++) {
+            assertEquals(dist[compOf[u]], r.dist()[oocOf[u]]);
+            assertEquals(longDist[compOf[u]], r.longest().dist()[oocOf[u]]);
+            for (int v = 0; v < n; v++) {
+                assertEquals(compOf[u] == compOf[v], oocOf[u] == oocOf[v]);
+            }
+        }
+    }
+
+    /** The Kahn probe calls a graph acyclic iff Tarjan finds only singletons and there are no self-loops. */
+    private static void assertPlanMatchesTarjan(PipelinePlanner.Plan plan, List<List<Integer>> adj) {
+        boolean selfLoop = false;
+        for (int v = 0; v < adj.size(); v++) selfLoop |= adj.get(v).contains(v);
+        int sccCount = new TarjanSCC(adj, new MetricsTracker()).run().size();
+        assertEquals(sccCount == adj.size() && !selfLoop, plan.acyclic());
+        assertEquals(plan.acyclic(), plan.probeOrder().size() == adj.size());
+    }
+
+    /** Exact spans equal the heaviest simple path found by enumeration; lower bounds never exceed it. */
+    private static void assertSpansMatchBruteForce(ComponentWorkSpan.Result cw,
+                                                   List<List<Integer>> adj,
+                                                   List<List<Integer>> comps,
+                                                   int[] work) {
+        for (int c = 0; c < comps.size(); c++) {
+            List<Integer> comp = comps.get(c);
+            long total = 0;
+            for (int v : comp) total += work[v];
+            assertEquals(total, cw.work()[c]);
+            assertTrue(cw.span()[c] <= total);
+            if (comp.size() > 10) continue; // enumeration is exponential
+            long best = 0;
+            for (int v : comp) {
+                best = Math.max(best, heaviestSimplePath(v, adj, new HashSet<>(comp), new HashSet<>(), work));
+            }
+            if (cw.exact()[c]) {
+                assertEquals(best, cw.span()[c], "span of component " + c);
+            } else {
+                assertTrue(cw.span()[c] <= best);
+            }
+        }
+    }
+
+    private static long heaviestSimplePath(int v, List<List<Integer>> adj, Set<Integer> comp,
+                                           Set<Integer> onPath, int[] work) {
+        onPath.add(v);
+        long best = 0;
+        for (int to : adj.get(v)) {
+            if (comp.contains(to) && !onPath.contains(to)) {
+                best = Math.max(best, heaviestSimplePath(to, adj, comp, onPath, work));
+            }
+        }
+        onPath.remove(v);
+        return work[v] + best;
+    }
+
+    /** Runs SCC colouring and Bellman relaxation on 3 socket-connected workers. */
+    private static void assertBspMatches(List<List<int[]>> adjW,
+                                         List<List<Integer>> comps,
+                                         List<List<int[]>> dag,
+                                         int src,
+                                         int[] dist) throws Exception {
+        int[] compOf = SCCUtils.buildVertexToComp(comps, adjW.size());
+        try (BspCluster cluster = new BspCluster(adjW, 3)) {
+            int[] label = cluster.scc();
+            for (int u = 0; u < adjW.size(); u++) {
+                for (int v = 0; v < adjW.size(); v++) {
+                    assertEquals(compOf[u] == compOf[v], label[u] == label[v]);
+                }
+            }
+            assertFalse(cluster.stats().isEmpty());
+        }
+        try (BspCluster cluster = new BspCluster(dag, 3)) {
+            assertArrayEquals(dist, cluster.shortestFrom(src));
+        }
+    }
+
+    /**
+     * Relabeling the input graph before Tarjan (Main dagsp -Drelabel=bfs|rcm) must
+     * give the same components and the same distance for every original vertex.
+     */
+    private static void assertInputRelabeledMatches(VertexRelabeling rl,
+                                                    List<List<Integer>> adj,
+                                                    List<List<int[]>> adjW,
+                                                    int[] compOf,
+                                                    int src,
+                                                    int[] dist) {
+        int n = adj.size();
+        List<List<Integer>> rAdj = rl.apply(adj);
+        List<List<Integer>> rComps = new TarjanSCC(rAdj, new MetricsTracker()).run();
+        int[] rCompOf = SCCUtils.buildVertexToComp(rComps, n);
+        for (int u = 0; u < n; u++) {
+            for (int v = 0; v < n; v++) {
+                assertEquals(compOf[u] == compOf[v], rCompOf[rl.newId(u)] == rCompOf[rl.newId(v)]);
+            }
+        }
+        List<List<Integer>> rDag = CondensationBuilder.buildCondensation(rAdj, rComps);
+        List<List<int[]>> rDagW = CondensationBuilder.buildWeightedCondensation(rAdj, rl.applyWeighted(adjW), rComps);
+        List<Integer> rTopo = KahnTopologicalSort.topo(rDag, new MetricsTracker());
+        int[] rDist = DAGShortestPath.shortestFrom(rCompOf[rl.newId(src)], rTopo, rDagW, new MetricsTracker());
+        for (int v = 0; v < n; v++) {
+            assertEquals(dist[compOf[v]], rDist[rCompOf[rl.newId(v)]]);
+        }
+    }
+
     /** Executes all algorithms on a single dataset and writes metrics. */
     private static void runAlgorithms(DatasetDTO ds,
                                       String name,
                                       ArrayNode results,
-                                      BufferedWriter csv) throws Exception {
+                                      BufferedWriter csv,
+                                      GraphWorkspace ws) throws Exception {
 
         ObjectMapper mapper = new ObjectMapper();
 
@@ -81,77 +794,148 @@ public class GraphAlgorithmsIntegrationTest {
         List<List<Integer>> adj = buildAdj(ds);
         List<List<int[]>> adjW = buildWeightedAdj(ds);
 
-        // 2) run SCC
+        // 2) plan: size/degree profile and a Kahn probe decide which stages run
+        PipelinePlanner.Plan plan = PipelinePlanner.plan(adj, adjW, ws);
+        assertPlanMatchesTarjan(plan, adj);
+
+        // 3) run SCC (skipped for a DAG: every vertex is its own component)
         MetricsTracker sccM = new MetricsTracker();
-        TarjanSCC scc = new TarjanSCC(adj, sccM);
-        List<List<Integer>> comps = scc.run();
+        List<List<Integer>> comps = plan.acyclic()
+                ? PipelinePlanner.singletonComponents(ds.n)
+                : new TarjanSCC(adj, sccM, ws).run();
         int compCount = comps.size();
 
         // vertex -> component id
         int[] compOf = SCCUtils.buildVertexToComp(comps, ds.n);
 
         // metrics for other parts
-        MetricsTracker topoM = new MetricsTracker();
+        MetricsTracker condM = new MetricsTracker();
+        MetricsTracker topoM;
         MetricsTracker shortM = new MetricsTracker();
         MetricsTracker longM = new MetricsTracker();
 
         List<Integer> topoOrder;
+        List<List<Integer>> dagPlain;
         List<List<int[]>> dagWeighted;
+        int originalSrc = (ds.source != null) ? ds.source : 0;
         int srcComp;
 
-        // 3) decide: original DAG or condensation
-        if (compCount == ds.n) {
-            // try topo on original
-            topoOrder = KahnTopologicalSort.topo(adj, topoM);
-            if (topoOrder.size() < ds.n) {
-                // still cyclic -> use condensation
-                List<List<Integer>> cond = CondensationBuilder.buildCondensation(adj, comps);
-                List<List<int[]>> condW = CondensationBuilder.buildWeightedCondensation(adj, adjW, comps);
-                topoOrder = KahnTopologicalSort.topo(cond, topoM);
-                dagWeighted = condW;
-                int originalSrc = (ds.source != null) ? ds.source : 0;
-                srcComp = compOf[originalSrc];
-            } else {
-                // original is DAG
-                dagWeighted = adjW;
-                int originalSrc = (ds.source != null) ? ds.source : 0;
-                srcComp = originalSrc;
-            }
+        // 3.1) original DAG (probe order reused) or condensation
+        if (plan.acyclic()) {
+            topoOrder = plan.probeOrder();
+            topoM = plan.probeMetrics();
+            dagPlain = adj;
+            dagWeighted = CondensationBuilder.collapseParallelEdges(adjW, ws, condM);
+            srcComp = originalSrc;
         } else {
-            // multiple SCCs -> build condensation
-            List<List<Integer>> cond = CondensationBuilder.buildCondensation(adj, comps);
-            List<List<int[]>> condW = CondensationBuilder.buildWeightedCondensation(adj, adjW, comps);
-            topoOrder = KahnTopologicalSort.topo(cond, topoM);
+            topoM = new MetricsTracker();
+            List<List<Integer>> cond = CondensationBuilder.buildCondensation(adj, comps, ws, condM);
+            List<List<int[]>> condW = CondensationBuilder.buildWeightedCondensation(adj, adjW, comps, ws, condM);
+            topoOrder = KahnTopologicalSort.topo(cond, topoM, ws);
+            dagPlain = cond;
             dagWeighted = condW;
-            int originalSrc = (ds.source != null) ? ds.source : 0;
             srcComp = compOf[originalSrc];
+            plan = PipelinePlanner.withCondensation(plan, topoOrder, condW, ws);
         }
 
-        // 4) DAG shortest path: in your project it returns int[]
-        int[] dist = DAGShortestPath.shortestFrom(srcComp, topoOrder, dagWeighted, shortM);
+        // 4) DAG shortest / longest path with the planned engine and distance width
+        long[] dist;
+        long[] longDist;
+        long unreachable;
+        if (plan.longDistances()) {
+            // workspace buffers may be longer than the DAG; keep exactly one entry per component
+            dist = Arrays.copyOf(DAGShortestPath.shortestFromLong(srcComp, topoOrder, dagWeighted, shortM, ws),
+                    compCount);
+            DAGLongestPath.LongestLongResult lr =
+                    DAGLongestPath.longestFromLong(srcComp, topoOrder, dagWeighted, longM, ws);
+            longDist = Arrays.copyOf(lr.dist(), compCount);
+            unreachable = Long.MIN_VALUE;
+        } else {
+            int[] intDist;
+            DAGLongestPath.LongestResult longRes;
+            if (plan.parallelDp()) {
+                ParallelDAGPaths.LevelGraph levels = ParallelDAGPaths.buildLevels(topoOrder, dagWeighted);
+                intDist = ParallelDAGPaths.shortestFrom(srcComp, levels, shortM, ws);
+                longRes = ParallelDAGPaths.longestFrom(srcComp, levels, longM, ws);
+            } else {
+                intDist = DAGShortestPath.shortestFrom(srcComp, topoOrder, dagWeighted, shortM, ws);
+                longRes = DAGLongestPath.longestFrom(srcComp, topoOrder, dagWeighted, longM, ws);
+            }
+            // workspace buffers may be longer than the DAG; keep exactly one entry per component
+            intDist = Arrays.copyOf(intDist, compCount);
+            longRes = new DAGLongestPath.LongestResult(Arrays.copyOf(longRes.dist(), compCount),
+                    Arrays.copyOf(longRes.parent(), compCount));
+
+            // 4.1) level-parallel engine must match the sequential ones exactly,
+            //      so the reference always comes from the sequential engines
+            if (plan.parallelDp()) {
+                MetricsTracker refM = new MetricsTracker();
+                int[] seqDist = DAGShortestPath.shortestFrom(srcComp, topoOrder, dagWeighted, refM);
+                DAGLongestPath.LongestResult seqLong = DAGLongestPath.longestFrom(srcComp, topoOrder, dagWeighted, refM);
+                assertArrayEquals(seqDist, intDist);
+                assertArrayEquals(seqLong.dist(), longRes.dist());
+                assertArrayEquals(seqLong.parent(), longRes.parent());
+                assertEquals(refM.getRelaxOps(), shortM.getRelaxOps() + longM.getRelaxOps());
+                intDist = seqDist;
+                longRes = seqLong;
+            }
+            assertParallelMatches(srcComp, topoOrder, dagWeighted, intDist, longRes,
+                    shortM.getRelaxOps() + longM.getRelaxOps());
 
-        // 5) DAG longest path: returns LongestResult(dist, parent)
-        DAGLongestPath.LongestResult longRes =
-                DAGLongestPath.longestFrom(srcComp, topoOrder, dagWeighted, longM);
+            // 4.2) every relabeling must give the same results in original IDs
+            assertRelabeledMatches(VertexRelabeling.topological(topoOrder, compCount),
+                    srcComp, topoOrder, dagWeighted, intDist, longRes);
+            assertRelabeledMatches(VertexRelabeling.bfs(dagPlain), srcComp, topoOrder, dagWeighted, intDist, longRes);
+            assertRelabeledMatches(VertexRelabeling.reverseCuthillMcKee(dagPlain),
+                    srcComp, topoOrder, dagWeighted, intDist, longRes);
+            assertInputRelabeledMatches(VertexRelabeling.bfs(adj), adj, adjW, compOf, originalSrc, intDist);
+            assertInputRelabeledMatches(VertexRelabeling.reverseCuthillMcKee(adj), adj, adjW, compOf, originalSrc, intDist);
 
-        int[] longDist = longRes.dist();
+            dist = Arrays.stream(intDist).asLongStream().toArray();
+            longDist = Arrays.stream(longRes.dist()).asLongStream().toArray();
+            unreachable = Integer.MIN_VALUE;
+        }
 
-        // find vertex with max distance
-        int bestV = -1;
-        int maxLen = Integer.MIN_VALUE;
-        for (int v = 0; v < longDist.length; v++) {
-            if (longDist[v] > maxLen) {
-                maxLen = longDist[v];
-                bestV = v;
-            }
+        // longest edge-only distance (the source itself is always reachable)
+        long maxLen = 0;
+        for (long d : longDist) {
+            if (d != unreachable) maxLen = Math.max(maxLen, d);
         }
-        if (maxLen == Integer.MIN_VALUE) {
-            maxLen = 0;
-            bestV = srcComp;
+
+        // 4.3) component work / span as node costs of the critical path
+        int[] work = (ds.work != null) ? ds.work : ComponentWorkSpan.unitWork(ds.n);
+        MetricsTracker workM = new MetricsTracker();
+        ComponentWorkSpan.Result cw = ComponentWorkSpan.compute(adj, comps, work, workM);
+        MetricsTracker critM = new MetricsTracker();
+        DAGLongestPath.LongestLongResult crit =
+                DAGLongestPath.longestFromLong(srcComp, topoOrder, dagWeighted, cw.span(), critM);
+        int bestV = srcComp;
+        long critLen = crit.dist()[srcComp];
+        long reachableWork = 0;
+        for (int c = 0; c < crit.dist().length; c++) {
+            if (crit.dist()[c] == Long.MIN_VALUE) continue;
+            reachableWork += cw.work()[c];
+            if (crit.dist()[c] > critLen) {
+                critLen = crit.dist()[c];
+                bestV = c;
+            }
         }
+        assertTrue(critLen >= maxLen, "node costs cannot shorten the critical path");
+
+        // 5) dominator tree of the DAG rooted at the source component
+        MetricsTracker domM = new MetricsTracker();
+        DominatorTree dom = DominatorTree.build(srcComp, topoOrder, dagPlain, domM);
 
         // rebuild critical path using existing method
-        List<Integer> critPath = DAGLongestPath.rebuildPath(bestV, longRes);
+        List<Integer> critPath = DAGLongestPath.rebuildPath(bestV, crit.parent());
+
+        // span: heaviest path by component spans alone (edge weights do not count)
+        long[] spanDist = DAGLongestPath.heaviestByNodeCost(srcComp, topoOrder, dagPlain, cw.span(), critM).dist();
+        long taskSpan = 0;
+        long critPathSpan = 0;
+        for (long d : spanDist) taskSpan = Math.max(taskSpan, d);
+        for (int c : critPath) critPathSpan += cw.span()[c];
+        assertTrue(critPathSpan <= taskSpan && taskSpan <= reachableWork);
 
         // 6) build JSON for this dataset
         ObjectNode one = mapper.createObjectNode();
@@ -178,6 +962,24 @@ public class GraphAlgorithmsIntegrationTest {
         }
         one.set("scc", sccArr);
 
+        // 6.1.1 shortest cycle per non-trivial SCC
+        MetricsTracker cycM = new MetricsTracker();
+        ArrayNode cycArr = mapper.createArrayNode();
+        for (CycleDiagnostics.ComponentCycle c : CycleDiagnostics.shortestCycles(adj, comps, 1000, cycM)) {
+            assertCycleInComponent(c, adj, comps);
+            ObjectNode cNode = mapper.createObjectNode();
+            cNode.put("component", c.component());
+            cNode.put("length", c.length());
+            cNode.put("exact", c.exact());
+            ArrayNode vs = mapper.createArrayNode();
+            for (int v : c.cycle()) {
+                vs.add(v);
+            }
+            cNode.set("cycle", vs);
+            cycArr.add(cNode);
+        }
+        one.set("cycles", cycArr);
+
         // 6.2 component topo order
         ArrayNode topoArr = mapper.createArrayNode();
         for (int c : topoOrder) {
@@ -200,7 +1002,7 @@ public class GraphAlgorithmsIntegrationTest {
         ObjectNode shortestNode = mapper.createObjectNode();
         shortestNode.put("sourceComp", srcComp);
         ArrayNode distArr = mapper.createArrayNode();
-        for (int d : dist) {
+        for (long d : dist) {
             distArr.add(d);
         }
         shortestNode.set("dist", distArr);
@@ -208,7 +1010,7 @@ public class GraphAlgorithmsIntegrationTest {
 
         // 6.5 critical path
         ObjectNode critNode = mapper.createObjectNode();
-        critNode.put("length", maxLen);
+        critNode.put("length", critLen);
         ArrayNode cpArr = mapper.createArrayNode();
         for (int v : critPath) {
             cpArr.add(v);
@@ -216,6 +1018,62 @@ public class GraphAlgorithmsIntegrationTest {
         critNode.set("path", cpArr);
         one.set("criticalPath", critNode);
 
+        // 6.5.0 work / span of the schedule from the source; span = heaviest path by component
+        // spans alone (criticalPath.length maximises edge weights plus spans instead)
+        ObjectNode wsNode = mapper.createObjectNode();
+        wsNode.put("work", reachableWork);
+        wsNode.put("span", taskSpan);
+        wsNode.put("parallelism", (taskSpan > 0) ? (double) reachableWork / taskSpan : 0.0);
+        wsNode.put("spanExact", cw.allExact());
+        wsNode.put("time_ms", workM.getElapsedMs() + critM.getElapsedMs());
+        ArrayNode cwArr = mapper.createArrayNode();
+        for (int c = 0; c < comps.size(); c++) {
+            ObjectNode cNode = mapper.createObjectNode();
+            cNode.put("id", c);
+            cNode.put("work", cw.work()[c]);
+            cNode.put("span", cw.span()[c]);
+            cNode.put("exact", cw.exact()[c]);
+            cwArr.add(cNode);
+        }
+        wsNode.set("components", cwArr);
+        one.set("workSpan", wsNode);
+
+        // 6.5.1 dominators (idom = -1 for the root and unreachable components)
+        ObjectNode domNode = mapper.createObjectNode();
+        domNode.put("root", srcComp);
+        ArrayNode idomArr = mapper.createArrayNode();
+        for (int d : dom.idoms()) {
+            idomArr.add(d);
+        }
+        domNode.set("idom", idomArr);
+        ArrayNode cutArr = mapper.createArrayNode();
+        for (int c : dom.cutVertices()) {
+            cutArr.add(c);
+        }
+        domNode.set("cutComponents", cutArr);
+        domNode.put("time_ms", domM.getElapsedMs());
+        one.set("dominators", domNode);
+
+        // 6.5.2 planner decisions and what the analysis behind each one cost
+        ObjectNode planNode = mapper.createObjectNode();
+        planNode.put("acyclic", plan.acyclic());
+        planNode.put("density", plan.density());
+        planNode.put("degreeSkew", plan.degreeSkew());
+        planNode.put("levels", plan.levels());
+        planNode.put("weightBound", plan.weightBound());
+        planNode.put("time_ms", plan.costNs() / 1_000_000.0);
+        ArrayNode decArr = mapper.createArrayNode();
+        for (PipelinePlanner.Decision d : plan.decisions()) {
+            ObjectNode dNode = mapper.createObjectNode();
+            dNode.put("stage", d.stage());
+            dNode.put("choice", d.choice());
+            dNode.put("reason", d.reason());
+            dNode.put("cost_ms", d.costNs() / 1_000_000.0);
+            decArr.add(dNode);
+        }
+        planNode.set("decisions", decArr);
+        one.set("plan", planNode);
+
         // 6.6 metrics
         one.put("Tarjan_SCC_count", compCount);
         one.put("Tarjan_time_ms", sccM.getElapsedMs());
@@ -227,6 +1085,14 @@ public class GraphAlgorithmsIntegrationTest {
         one.put("DAGSP_long_time_ms", longM.getElapsedMs());
         one.put("DAGSP_long_relax_ops", longM.getRelaxOps());
         one.put("DAGSP_long_max", maxLen);
+        one.put("Tarjan_peak_bytes", sccM.getPeakBytes());
+        one.put("Cond_peak_bytes", condM.getPeakBytes());
+        one.put("Kahn_peak_bytes", topoM.getPeakBytes());
+        one.put("DAGSP_short_peak_bytes", shortM.getPeakBytes());
+        one.put("DAGSP_long_peak_bytes", longM.getPeakBytes());
+        one.put("Plan_time_ms", plan.costNs() / 1_000_000.0);
+        one.put("Critical_length", critLen);
+        one.put("Work_total", reachableWork);
 
         // add to global JSON array
         results.add(one);
@@ -245,11 +1111,63 @@ public class GraphAlgorithmsIntegrationTest {
                 String.valueOf(shortM.getRelaxOps()),
                 String.valueOf(longM.getElapsedMs()),
                 String.valueOf(longM.getRelaxOps()),
-                String.valueOf(maxLen)
+                String.valueOf(maxLen),
+                String.valueOf(sccM.getPeakBytes()),
+                String.valueOf(condM.getPeakBytes()),
+                String.valueOf(topoM.getPeakBytes()),
+                String.valueOf(shortM.getPeakBytes()),
+                String.valueOf(longM.getPeakBytes()),
+                String.valueOf(plan.costNs() / 1_000_000.0),
+                plan.decision("scc").choice(),
+                plan.decision("dp-engine").choice(),
+                plan.decision("dist-width").choice(),
+                String.valueOf(workM.getElapsedMs() + critM.getElapsedMs()),
+                String.valueOf(reachableWork),
+                String.valueOf(critLen)
         ));
         csv.write("\n");
     }
 
+    /** Every JSON dataset in /data except output.json, in directory order. */
+    private static Map<Path, DatasetDTO> datasets() throws Exception {
+        if (!Files.exists(DATA_DIR)) throw new IllegalStateException("data/ folder missing");
+        ObjectMapper mapper = new ObjectMapper();
+        Map<Path, DatasetDTO> out = new LinkedHashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DATA_DIR, "*.json")) {
+            for (Path json : files) {
+                if (json.getFileName().toString().equals("output.json")) continue;
+                out.put(json, mapper.readValue(json.toFile(), new TypeReference<DatasetDTO>() {}));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * In-memory reference for the cross-checks: Tarjan components (even for a DAG),
+     * the condensation, its topological order and the source component.
+     */
+    private record Reference(List<List<Integer>> adj,
+                             List<List<int[]>> adjW,
+                             List<List<Integer>> comps,
+                             int[] compOf,
+                             List<List<Integer>> dag,
+                             List<List<int[]>> dagW,
+                             List<Integer> topo,
+                             int src) {
+
+        static Reference of(DatasetDTO ds) {
+            List<List<Integer>> adj = buildAdj(ds);
+            List<List<int[]>> adjW = buildWeightedAdj(ds);
+            List<List<Integer>> comps = new TarjanSCC(adj, new MetricsTracker()).run();
+            int[] compOf = SCCUtils.buildVertexToComp(comps, ds.n);
+            List<List<Integer>> dag = CondensationBuilder.buildCondensation(adj, comps);
+            List<List<int[]>> dagW = CondensationBuilder.buildWeightedCondensation(adj, adjW, comps);
+            List<Integer> topo = KahnTopologicalSort.topo(dag, new MetricsTracker());
+            int src = compOf[(ds.source != null) ? ds.source : 0];
+            return new Reference(adj, adjW, comps, compOf, dag, dagW, topo, src);
+        }
+    }
+
     /** Builds adjacency list from dataset. */
     private static List<List<Integer>> buildAdj(DatasetDTO ds) {
         List<List<Integer>> g = new ArrayList<>();
@@ -268,4 +1186,4 @@ public class GraphAlgorithmsIntegrationTest {
         }
         return g;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+import graph.dagsp.DAGLongestPath;
+import graph.dagsp.DAGShortestPath;
+import graph.topo.KahnTopologicalSort;
+import graph.util.VertexRelabeling;
+import metrics.MetricsTracker;
+
+import java.util.*;
+
+/**
+ * Benchmark for topological relabeling of a large DAG.
+ * Not a unit test (surefire only runs *Test classes); run it with
+ *
+ *   mvn -B test-compile
+ *   java -cp target/classes:target/test-classes VertexRelabelingBenchmark [n] [reps]
+ *
+ * The JVM cannot read hardware counters, so besides wall time the benchmark
+ * replays the dist[] access pattern of the DP through a simulated 32 KiB
+ * direct-mapped cache (64-byte lines) and reports the miss count.
+ * Use `perf stat -e cache-misses` on the same command for real counters.
+ */
+public class VertexRelabelingBenchmark {
+
+    private static final int LINE_INTS = 16;   // 64-byte line / 4-byte int
+    private static final int CACHE_LINES = 512; // 32 KiB
+
+    public static void main(String[] args) {
+        int n = (args.length >= 1) ? Integer.parseInt(args[0]) : 2_000_000;
+        int reps = (args.length >= 2) ? Integer.parseInt(args[1]) : 5;
+
+        List<List<int[]>> g = scatteredDag(n, 4, new Random(7));
+        List<List<Integer>> plain = unweighted(g);
+        List<Integer> topo = KahnTopologicalSort.topo(plain, new MetricsTracker());
+
+        VertexRelabeling rl = VertexRelabeling.topological(topo, n);
+        List<List<int[]>> rg = rl.applyWeighted(g);
+        List<Integer> rtopo = rl.toNew(topo);
+        int src = topo.get(0);
+
+        System.out.printf("n=%d, m=%d, reps=%d%n", n, edgeCount(g), reps);
+        report("original ", src, topo, g, reps);
+        report("relabeled", rl.newId(src), rtopo, rg, reps);
+    }
+
+    private static void report(String label, int src, List<Integer> topo, List<List<int[]>> g, int reps) {
+        double bestShort = Double.MAX_VALUE, bestLong = Double.MAX_VALUE;
+        for (int r = 0; r < reps; r++) {
+            MetricsTracker sm = new MetricsTracker();
+            DAGShortestPath.shortestFrom(src, topo, g, sm);
+            bestShort = Math.min(bestShort, sm.getElapsedMs());
+            MetricsTracker lm = new MetricsTracker();
+            DAGLongestPath.longestFrom(src, topo, g, lm);
+            bestLong = Math.min(bestLong, lm.getElapsedMs());
+        }
+        System.out.printf("%s: shortest %.2f ms, longest %.2f ms, avg edge span %.1f, simulated dist[] misses %d%n",
+                label, bestShort, bestLong, averageEdgeSpan(g), simulatedMisses(topo, g));
+    }
+
+    /** Replays dist[v] / dist[to] accesses of the DP through a direct-mapped cache. */
+    private static long simulatedMisses(List<Integer> topo, List<List<int[]>> g) {
+        long[] tags = new long[CACHE_LINES];
+        Arrays.fill(tags, -1);
+        long misses = 0;
+        for (int v : topo) {
+            misses += touch(tags, v);
+            for (int[] e : g.get(v)) {
+                misses += touch(tags, e[0]);
+            }
+        }
+        return misses;
+    }
+
+    private static int touch(long[] tags, int index) {
+        long line = index / LINE_INTS;
+        int set = (int) (line % CACHE_LINES);
+        if (tags[set] == line) return 0;
+        tags[set] = line;
+        return 1;
+    }
+
+    private static double averageEdgeSpan(List<List<int[]>> g) {
+        long sum = 0, m = 0;
+        for (int v = 0; v < g.size(); v++) {
+            for (int[] e : g.get(v)) {
+                sum += Math.abs(e[0] - v);
+                m++;
+            }
+        }
+        return (m == 0) ? 0 : (double) sum / m;
+    }
+
+    /** Random DAG whose edges go forward in a hidden rank order, with shuffled vertex IDs. */
+    private static List<List<int[]>> scatteredDag(int n, int outDeg, Random rnd) {
+        int[] idOfRank = new int[n];
+        for (int i = 0; i < n; i++) idOfRank[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = idOfRank[i];
+            idOfRank[i] = idOfRank[j];
+            idOfRank[j] = t;
+        }
+        List<List<int[]>> g = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) g.add(new ArrayList<>(outDeg));
+        for (int r = 0; r + 1 < n; r++) {
+            for (int k = 0; k < outDeg; k++) {
+                int to = r + 1 + rnd.nextInt(Math.min(64, n - r - 1));
+                g.get(idOfRank[r]).add(new int[]{idOfRank[to], 1 + rnd.nextInt(9)});
+            }
+        }
+        return g;
+    }
+
+    private static List<List<Integer>> unweighted(List<List<int[]>> g) {
+        List<List<Integer>> out = new ArrayList<>(g.size());
+        for (List<int[]> es : g) {
+            List<Integer> tos = new ArrayList<>(es.size());
+            for (int[] e : es) tos.add(e[0]);
+            out.add(tos);
+        }
+        return out;
+    }
+
+    private static long edgeCount(List<List<int[]>> g) {
+        long m = 0;
+        for (List<int[]> es : g) m += es.size();
+        return m;
+    }
+}